@@ -2,34 +2,45 @@ package com.example.backend;
 
 import com.example.backend.model.*;
 import com.example.backend.repository.*;
+import com.example.backend.service.AttendanceSummaryRebuildJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.util.List;
 
+// sample rows for local development; the "generate" profile seeds with SyntheticDataGenerator instead
 @Component
+@Profile("!generate")
 public class DataLoader implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
+
     private final StudentRepository studentRepository;
     private final TeacherRepository teacherRepository;
     private final AssignmentRepository assignmentRepository;
     private final AttendanceRepository attendanceRepository;
     private final ResultRepository resultRepository;
     private final StudentQueryRepository queryRepository;
+    private final AttendanceSummaryRebuildJob attendanceSummaryRebuildJob;
 
     public DataLoader(StudentRepository studentRepository,
                       TeacherRepository teacherRepository,
                       AssignmentRepository assignmentRepository,
                       AttendanceRepository attendanceRepository,
                       ResultRepository resultRepository,
-                      StudentQueryRepository queryRepository) {
+                      StudentQueryRepository queryRepository,
+                      AttendanceSummaryRebuildJob attendanceSummaryRebuildJob) {
         this.studentRepository = studentRepository;
         this.teacherRepository = teacherRepository;
         this.assignmentRepository = assignmentRepository;
         this.attendanceRepository = attendanceRepository;
         this.resultRepository = resultRepository;
         this.queryRepository = queryRepository;
+        this.attendanceSummaryRebuildJob = attendanceSummaryRebuildJob;
     }
 
     @Override
@@ -47,6 +58,9 @@ public class DataLoader implements CommandLineRunner {
         Attendance att1 = new Attendance(); att1.setStudent(s1); att1.setDate(LocalDate.now().minusDays(2)); att1.setPresent(true); attendanceRepository.save(att1);
         Attendance att2 = new Attendance(); att2.setStudent(s1); att2.setDate(LocalDate.now().minusDays(1)); att2.setPresent(false); attendanceRepository.save(att2);
 
+        // sample rows bypass AttendanceService, so bring attendance_summary up to date
+        attendanceSummaryRebuildJob.rebuild();
+
         // results
     Result r1 = new Result(); r1.setStudent(s1); r1.setSemester("1"); r1.setMarks(85); r1.setMaxMarks(100); r1.setSubjectId("Math-101"); resultRepository.save(r1);
     Result r2 = new Result(); r2.setStudent(s1); r2.setSemester("2"); r2.setMarks(78); r2.setMaxMarks(100); r2.setSubjectId("Physics-101"); resultRepository.save(r2);
@@ -54,6 +68,6 @@ public class DataLoader implements CommandLineRunner {
         // queries
         StudentQuery q1 = new StudentQuery(); q1.setStudent(s1); q1.setTeacher(t1); q1.setMessage("Can you explain Chapter 3?"); queryRepository.save(q1);
 
-        System.out.println("Sample data loaded: students=" + studentRepository.count());
+        log.info("Sample data loaded: students={}", studentRepository.count());
     }
 }
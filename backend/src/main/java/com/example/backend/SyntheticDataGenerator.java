@@ -0,0 +1,310 @@
+package com.example.backend;
+
+import com.example.backend.service.AttendancePartitionJob;
+import com.example.backend.service.AttendanceSummaryRebuildJob;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Replaces the {@link DataLoader} sample rows with a generated dataset when the "generate" profile
+ * is active: teachers, students, enrollments, school-day attendance over several years, results
+ * per semester and student queries. Rows are streamed to PostgreSQL with COPY in one transaction,
+ * with explicit ids, and the id sequences are moved past them afterwards.
+ *
+ * <p>The data is skewed the way a real school's is: subject popularity follows a Zipf curve (so
+ * class sizes vary), a minority of students are chronically absent, marks depend on a per-student
+ * ability and a per-subject difficulty, and a few students ask most of the queries, mostly
+ * recently. Everything derives from {@code app.generator.seed} and the dates from
+ * {@code app.generator.end-date} rather than the clock, so the same settings always produce the
+ * same rows, whichever day they run.
+ */
+@Component
+@Profile("generate")
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final AttendanceSummaryRebuildJob attendanceSummaryRebuildJob;
+    private final AttendancePartitionJob attendancePartitionJob;
+
+    private final long seed;
+    private final int teacherCount;
+    private final int studentCount;
+    private final int subjectCount;
+    private final int subjectsPerStudent;
+    private final int years;
+    private final LocalDate endDate;
+    private final int queryCount;
+    private final boolean reset;
+
+    public SyntheticDataGenerator(DataSource dataSource,
+                                  JdbcTemplate jdbcTemplate,
+                                  AttendanceSummaryRebuildJob attendanceSummaryRebuildJob,
+                                  AttendancePartitionJob attendancePartitionJob,
+                                  @Value("${app.generator.seed:42}") long seed,
+                                  @Value("${app.generator.teachers:200}") int teacherCount,
+                                  @Value("${app.generator.students:5000}") int studentCount,
+                                  @Value("${app.generator.subjects:40}") int subjectCount,
+                                  @Value("${app.generator.subjects-per-student:5}") int subjectsPerStudent,
+                                  @Value("${app.generator.years:2}") int years,
+                                  @Value("${app.generator.end-date:2025-07-01}") String endDate,
+                                  @Value("${app.generator.queries:100000}") int queryCount,
+                                  @Value("${app.generator.reset:false}") boolean reset) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.attendanceSummaryRebuildJob = attendanceSummaryRebuildJob;
+        this.attendancePartitionJob = attendancePartitionJob;
+        this.seed = seed;
+        this.teacherCount = teacherCount;
+        this.studentCount = studentCount;
+        this.subjectCount = Math.min(subjectCount, teacherCount);
+        this.subjectsPerStudent = Math.min(subjectsPerStudent, this.subjectCount);
+        this.years = years;
+        this.endDate = LocalDate.parse(endDate);
+        this.queryCount = queryCount;
+        this.reset = reset;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        Long students = jdbcTemplate.queryForObject("SELECT count(*) FROM students", Long.class);
+        Long teachers = jdbcTemplate.queryForObject("SELECT count(*) FROM teachers", Long.class);
+        if (students + teachers > 0) {
+            if (!reset) {
+                log.info("Synthetic data not generated: database already has {} students and {} teachers (set app.generator.reset=true to replace them)", students, teachers);
+                return;
+            }
+            // cascades to every table that references students or teachers
+            jdbcTemplate.execute("TRUNCATE students, teachers, attendance_summary RESTART IDENTITY CASCADE");
+        }
+
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        List<LocalDate> schoolDays = schoolDays(endDate, years);
+        // monthly attendance partitions for the whole range, so COPY does not fill the default partition
+        if (!schoolDays.isEmpty()) {
+            attendancePartitionJob.ensureRange(schoolDays.get(0), schoolDays.get(schoolDays.size() - 1));
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            PGConnection pg = connection.unwrap(PGConnection.class);
+
+            // teacher t teaches subject t % subjects, so popular subjects have several classes
+            try (Copy copy = new Copy(pg, "COPY teachers (id, name, email, email_normalized) FROM STDIN")) {
+                for (int t = 0; t < teacherCount; t++) {
+                    String email = teacherEmail(t);
+                    copy.col(t + 1).col("Teacher " + t).col(email).col(email).end();
+                }
+            }
+
+            // per-student traits: the k-th class (as a teacher index), attendance rate and ability
+            int[][] classes = new int[studentCount][subjectsPerStudent];
+            double[] attendanceRate = new double[studentCount];
+            double[] ability = new double[studentCount];
+            double[] subjectWeights = new double[subjectCount];
+            for (int s = 0; s < subjectCount; s++) subjectWeights[s] = 1.0 / (s + 1);
+            double[] subjectDifficulty = new double[subjectCount];
+            for (int s = 0; s < subjectCount; s++) subjectDifficulty[s] = random.nextDouble(-10, 10);
+
+            try (Copy copy = new Copy(pg, "COPY students (id, name, email, email_normalized, teacher_id, subject) FROM STDIN")) {
+                for (int i = 0; i < studentCount; i++) {
+                    boolean[] taken = new boolean[subjectCount];
+                    for (int k = 0; k < subjectsPerStudent; k++) {
+                        int subject = weightedPick(random, subjectWeights, taken);
+                        taken[subject] = true;
+                        int sections = (teacherCount - subject + subjectCount - 1) / subjectCount;
+                        classes[i][k] = subject + subjectCount * random.nextInt(sections);
+                    }
+                    attendanceRate[i] = random.nextInt(100) < 8 ? random.nextDouble(0.55, 0.80) : random.nextDouble(0.88, 0.99);
+                    ability[i] = clamp(65 + 12 * gaussian(random), 20, 98);
+                    String email = studentEmail(i);
+                    copy.col(i + 1).col("Student " + i).col(email).col(email)
+                            .col(classes[i][0] + 1).col(subjectOf(classes[i][0])).end();
+                }
+            }
+
+            long enrollmentId = 0;
+            try (Copy copy = new Copy(pg, "COPY enrollments (id, student_id, teacher_id, subject_id) FROM STDIN")) {
+                for (int i = 0; i < studentCount; i++) {
+                    for (int t : classes[i]) copy.col(++enrollmentId).col(i + 1).col(t + 1).col(subjectOf(t)).end();
+                }
+            }
+            log.info("Generated {} teachers, {} students, {} enrollments", teacherCount, studentCount, enrollmentId);
+
+            // one roll call per class per school day; Mondays and Fridays see a little more absence
+            long attendanceId = 0;
+            try (Copy copy = new Copy(pg, "COPY attendance (id, date, student_id, teacher_id, subject_id, present) FROM STDIN")) {
+                for (LocalDate day : schoolDays) {
+                    String date = day.toString();
+                    double penalty = day.getDayOfWeek() == DayOfWeek.MONDAY || day.getDayOfWeek() == DayOfWeek.FRIDAY ? 0.03 : 0;
+                    for (int i = 0; i < studentCount; i++) {
+                        for (int t : classes[i]) {
+                            boolean present = random.nextDouble() < attendanceRate[i] - penalty;
+                            copy.col(++attendanceId).col(date).col(i + 1).col(t + 1).col(subjectOf(t)).col(present ? "t" : "f").end();
+                        }
+                    }
+                }
+            }
+            log.info("Generated {} attendance rows over {} school days", attendanceId, schoolDays.size());
+
+            long resultId = 0;
+            try (Copy copy = new Copy(pg, "COPY results (id, student_id, subject_id, semester, marks, max_marks) FROM STDIN")) {
+                for (int semester = 1; semester <= 2 * years; semester++) {
+                    for (int i = 0; i < studentCount; i++) {
+                        for (int t : classes[i]) {
+                            double marks = ability[i] - subjectDifficulty[t % subjectCount] + 8 * gaussian(random);
+                            copy.col(++resultId).col(i + 1).col(subjectOf(t)).col(semester)
+                                    .col(Math.round(clamp(marks, 0, 100))).col(100).end();
+                        }
+                    }
+                }
+            }
+
+            // a few students ask most queries (u^3 concentrates on low ids), mostly in the last weeks
+            LocalDate lastDay = endDate.minusDays(1);
+            int spanDays = years * 365;
+            try (Copy copy = new Copy(pg, "COPY student_queries (id, student_id, teacher_id, message, reply, kind, created_at) FROM STDIN")) {
+                for (int q = 1; q <= queryCount; q++) {
+                    double u = random.nextDouble();
+                    int i = (int) (studentCount * u * u * u);
+                    int t = classes[i][random.nextInt(subjectsPerStudent)];
+                    double v = random.nextDouble();
+                    int daysAgo = (int) (spanDays * v * v);
+                    LocalDateTime createdAt = lastDay.minusDays(daysAgo).atTime(8 + random.nextInt(10), random.nextInt(60));
+                    String reply = daysAgo >= 2 && random.nextInt(10) < 7 ? "Please see the worked example in section " + (1 + random.nextInt(12)) + " of the notes." : null;
+                    copy.col(q).col(i + 1).col(t + 1)
+                            .col("Could you explain exercise " + (1 + random.nextInt(20)) + " in " + subjectOf(t) + " again? I got a different answer.")
+                            .col(reply).col("QUERY").col(createdAt.toString().replace('T', ' ')).end();
+                }
+            }
+
+            try (Statement st = connection.createStatement()) {
+                for (String table : List.of("teachers", "students", "enrollments", "results", "student_queries")) {
+                    st.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + table + "), 1))");
+                }
+                st.execute("SELECT setval('attendance_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM attendance), (SELECT last_value FROM attendance_seq)))");
+            }
+            connection.commit();
+        }
+
+        attendanceSummaryRebuildJob.rebuild();
+        jdbcTemplate.execute("ANALYZE");
+        log.info("Synthetic data generated (seed={}) in {} ms", seed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    static String teacherEmail(int t) {
+        return "teacher" + t + "@school.test";
+    }
+
+    static String studentEmail(int i) {
+        return "student" + i + "@school.test";
+    }
+
+    private String subjectOf(int teacher) {
+        return "SUBJ-" + (teacher % subjectCount);
+    }
+
+    /** Weekdays of the {@code years} school years before {@code end}, skipping the summer and winter breaks. */
+    static List<LocalDate> schoolDays(LocalDate end, int years) {
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate d = end.minusYears(years); d.isBefore(end); d = d.plusDays(1)) {
+            if (d.getDayOfWeek() == DayOfWeek.SATURDAY || d.getDayOfWeek() == DayOfWeek.SUNDAY) continue;
+            if (d.getMonth() == Month.JULY || d.getMonth() == Month.AUGUST) continue;
+            if ((d.getMonth() == Month.DECEMBER && d.getDayOfMonth() >= 22) || (d.getMonth() == Month.JANUARY && d.getDayOfMonth() <= 2)) continue;
+            days.add(d);
+        }
+        return days;
+    }
+
+    private static int weightedPick(SplittableRandom random, double[] weights, boolean[] excluded) {
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) if (!excluded[i]) total += weights[i];
+        double x = random.nextDouble(total);
+        int last = -1;
+        for (int i = 0; i < weights.length; i++) {
+            if (excluded[i]) continue;
+            last = i;
+            x -= weights[i];
+            if (x < 0) return i;
+        }
+        return last;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+        double u = 1.0 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    /** Text-format COPY FROM STDIN, buffered; values must not contain tabs, newlines or backslashes. */
+    private static final class Copy implements AutoCloseable {
+        private final CopyIn copyIn;
+        private final StringBuilder row = new StringBuilder(FLUSH_BYTES + 1024);
+        private boolean first = true;
+
+        Copy(PGConnection pg, String sql) throws SQLException {
+            this.copyIn = pg.getCopyAPI().copyIn(sql);
+        }
+
+        Copy col(long value) {
+            if (!first) row.append('\t');
+            row.append(value);
+            first = false;
+            return this;
+        }
+
+        Copy col(Object value) {
+            if (!first) row.append('\t');
+            row.append(value == null ? "\\N" : value);
+            first = false;
+            return this;
+        }
+
+        void end() throws SQLException {
+            row.append('\n');
+            first = true;
+            if (row.length() >= FLUSH_BYTES) flush();
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            row.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            flush();
+            copyIn.endCopy();
+        }
+    }
+}
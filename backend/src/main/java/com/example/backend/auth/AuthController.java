@@ -1,6 +1,5 @@
 package com.example.backend.auth;
 
-import com.google.firebase.auth.FirebaseToken;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestAttribute;
@@ -12,7 +11,7 @@ import java.util.Map;
 public class AuthController {
 
     @GetMapping("/api/auth/me")
-    public ResponseEntity<?> me(@RequestAttribute(value = "firebaseUser", required = false) FirebaseToken token) {
+    public ResponseEntity<?> me(@RequestAttribute(value = "firebaseUser", required = false) VerifiedToken token) {
         if (token == null) return ResponseEntity.status(401).body(Map.of("error", "unauthenticated"));
         return ResponseEntity.ok(Map.of(
                 "uid", token.getUid(),
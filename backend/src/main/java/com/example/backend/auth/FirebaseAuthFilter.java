@@ -1,7 +1,9 @@
 package com.example.backend.auth;
 
-import com.google.firebase.auth.FirebaseToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -14,24 +16,43 @@ import java.io.IOException;
 @Component
 public class FirebaseAuthFilter extends OncePerRequestFilter {
 
-    private final FirebaseTokenVerifier verifier;
+    private static final Logger log = LoggerFactory.getLogger(FirebaseAuthFilter.class);
 
-    public FirebaseAuthFilter(FirebaseTokenVerifier verifier) {
-        this.verifier = verifier;
+    private final VerifiedTokenCache tokenCache;
+
+    public FirebaseAuthFilter(VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws ServletException, IOException {
-        String auth = req.getHeader(HttpHeaders.AUTHORIZATION);
-        if (auth != null && auth.startsWith("Bearer ")) {
-            String token = auth.substring(7);
+        String token = bearerToken(req);
+        if (token != null) {
+            VerifiedToken decoded;
             try {
-                FirebaseToken decoded = verifier.verifyToken(token);
-                req.setAttribute("firebaseUser", decoded);
-            } catch (Exception e) {
-                // invalid token - ignore and continue unauthenticated
+                decoded = tokenCache.verify(token);
+            } catch (TokenVerificationUnavailableException e) {
+                // don't serve the request as anonymous when its token may well be valid
+                log.warn("token verification unavailable: {}", e.getMessage());
+                res.setHeader(HttpHeaders.RETRY_AFTER, "5");
+                res.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "token verification unavailable");
+                return;
             }
+            // invalid token - continue unauthenticated
+            if (decoded != null) req.setAttribute("firebaseUser", decoded);
         }
         chain.doFilter(req, res);
     }
+
+    // EventSource cannot set request headers, so the notification streams (and only they) also
+    // accept the ID token as the access_token query parameter.
+    private static String bearerToken(HttpServletRequest req) {
+        String auth = req.getHeader(HttpHeaders.AUTHORIZATION);
+        if (auth != null && auth.startsWith("Bearer ")) return auth.substring(7);
+        if (req.getRequestURI().endsWith("/notifications/stream")) {
+            String token = req.getParameter("access_token");
+            if (token != null && !token.isBlank()) return token;
+        }
+        return null;
+    }
 }
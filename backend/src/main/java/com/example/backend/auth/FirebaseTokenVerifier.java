@@ -1,13 +1,46 @@
 package com.example.backend.auth;
 
+import com.google.firebase.auth.AuthErrorCode;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.FirebaseToken;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+
 @Service
-public class FirebaseTokenVerifier {
+@ConditionalOnProperty(name = "app.auth.verifier", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseTokenVerifier implements TokenVerifier {
+
+    // verdicts on the token itself; anything else (certificate fetch, network) may pass on retry
+    private static final Set<AuthErrorCode> REJECTIONS = EnumSet.of(
+            AuthErrorCode.INVALID_ID_TOKEN,
+            AuthErrorCode.EXPIRED_ID_TOKEN,
+            AuthErrorCode.REVOKED_ID_TOKEN,
+            AuthErrorCode.USER_DISABLED,
+            AuthErrorCode.TENANT_ID_MISMATCH);
+
     public FirebaseToken verifyToken(String idToken) throws FirebaseAuthException {
         return FirebaseAuth.getInstance().verifyIdToken(idToken);
     }
+
+    @Override
+    public VerifiedToken verify(String idToken) throws InvalidTokenException, TokenVerificationUnavailableException {
+        try {
+            FirebaseToken token = verifyToken(idToken);
+            Object exp = token.getClaims().get("exp");
+            Instant expiresAt = exp instanceof Number n ? Instant.ofEpochSecond(n.longValue()) : Instant.now();
+            return new VerifiedToken(token.getUid(), token.getEmail(), token.getClaims(), expiresAt);
+        } catch (FirebaseAuthException e) {
+            if (REJECTIONS.contains(e.getAuthErrorCode())) throw new InvalidTokenException("token rejected: " + e.getMessage(), e);
+            throw new TokenVerificationUnavailableException("token could not be verified: " + e.getMessage(), e);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // IllegalArgumentException: empty token; IllegalStateException: Firebase Admin SDK not
+            // initialized (FirebaseInitializer), so no token can be verified in this process
+            throw new InvalidTokenException("token rejected: " + e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.backend.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Offline verifier for local development and tests: accepts tokens of the form
+ * "local:&lt;email&gt;" and treats the email as the uid. Never enable it in production.
+ */
+@Service
+@ConditionalOnProperty(name = "app.auth.verifier", havingValue = "local")
+public class LocalTokenVerifier implements TokenVerifier {
+
+    private static final String PREFIX = "local:";
+
+    private final Duration ttl;
+
+    public LocalTokenVerifier(@Value("${app.auth.local.ttl-seconds:3600}") long ttlSeconds) {
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    @Override
+    public VerifiedToken verify(String idToken) throws InvalidTokenException {
+        if (idToken == null || !idToken.startsWith(PREFIX) || idToken.length() == PREFIX.length()) {
+            throw new InvalidTokenException("not a local token");
+        }
+        String email = idToken.substring(PREFIX.length()).trim();
+        Instant exp = Instant.now().plus(ttl);
+        return new VerifiedToken(email, email, Map.of("email", email, "exp", exp.getEpochSecond()), exp);
+    }
+}
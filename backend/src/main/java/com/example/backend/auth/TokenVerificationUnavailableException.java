@@ -0,0 +1,12 @@
+package com.example.backend.auth;
+
+/**
+ * The token could not be checked right now (e.g. Firebase's public keys could not be fetched).
+ * Unlike {@link InvalidTokenException} this says nothing about the token itself, so it is never
+ * cached as a rejection.
+ */
+public class TokenVerificationUnavailableException extends Exception {
+    public TokenVerificationUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.backend.auth;
+
+/**
+ * Verifies a bearer ID token. The Firebase implementation is used by default; set
+ * app.auth.verifier=local to use {@link LocalTokenVerifier}, which needs no network.
+ * Implementations throw {@link InvalidTokenException} only for tokens that will never verify
+ * (malformed, bad signature, expired, revoked), and {@link TokenVerificationUnavailableException}
+ * when the check itself could not be made.
+ */
+public interface TokenVerifier {
+    VerifiedToken verify(String idToken) throws InvalidTokenException, TokenVerificationUnavailableException;
+}
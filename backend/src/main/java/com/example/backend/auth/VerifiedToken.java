@@ -0,0 +1,28 @@
+package com.example.backend.auth;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The identity carried by a verified ID token. Set on the request as the "firebaseUser"
+ * attribute by {@link FirebaseAuthFilter}.
+ */
+public class VerifiedToken {
+
+    private final String uid;
+    private final String email;
+    private final Map<String, Object> claims;
+    private final Instant expiresAt;
+
+    public VerifiedToken(String uid, String email, Map<String, Object> claims, Instant expiresAt) {
+        this.uid = uid;
+        this.email = email;
+        this.claims = claims == null ? Map.of() : claims;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getUid() { return uid; }
+    public String getEmail() { return email; }
+    public Map<String, Object> getClaims() { return claims; }
+    public Instant getExpiresAt() { return expiresAt; }
+}
@@ -0,0 +1,110 @@
+package com.example.backend.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Caches verification results so signature checks (and Firebase public-key refreshes) do not run
+ * on every request. Entries are keyed by the SHA-256 of the token, so raw tokens are never held,
+ * and live until the token's exp claim (capped at max-ttl). Recently rejected tokens are
+ * remembered briefly so a client retrying a bad token does not trigger verification each time;
+ * only definitive rejections are, a verifier that could not reach its keys is asked again.
+ * Hit/miss/eviction metrics are published as cache.* meters tagged cache=auth.tokens and
+ * cache=auth.rejected-tokens.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final TokenVerifier verifier;
+    private final Duration maxTtl;
+    private final Cache<String, VerifiedToken> verified;
+    private final Cache<String, Boolean> rejected;
+
+    public VerifiedTokenCache(TokenVerifier verifier,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.auth.token-cache.max-size:10000}") long maxSize,
+                              @Value("${app.auth.token-cache.max-ttl-seconds:3600}") long maxTtlSeconds,
+                              @Value("${app.auth.token-cache.negative-max-size:1000}") long negativeMaxSize,
+                              @Value("${app.auth.token-cache.negative-ttl-seconds:60}") long negativeTtlSeconds) {
+        this.verifier = verifier;
+        this.maxTtl = Duration.ofSeconds(maxTtlSeconds);
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return remainingLifetime(token).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return remainingLifetime(token).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.rejected = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(negativeTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "auth.tokens");
+        CaffeineCacheMetrics.monitor(meterRegistry, rejected, "auth.rejected-tokens");
+    }
+
+    /**
+     * Returns the verified identity for the token, or null if it is invalid or expired. Throws if
+     * the verifier could not check it; nothing is cached then.
+     */
+    public VerifiedToken verify(String idToken) throws TokenVerificationUnavailableException {
+        String key = hash(idToken);
+        VerifiedToken cached = verified.getIfPresent(key);
+        if (cached != null) {
+            if (cached.getExpiresAt().isAfter(Instant.now())) return cached;
+            verified.invalidate(key);
+        }
+        if (rejected.getIfPresent(key) != null) return null;
+
+        try {
+            VerifiedToken token = verifier.verify(idToken);
+            if (!remainingLifetime(token).isZero()) verified.put(key, token);
+            return token;
+        } catch (InvalidTokenException e) {
+            rejected.put(key, Boolean.TRUE);
+            return null;
+        }
+    }
+
+    private Duration remainingLifetime(VerifiedToken token) {
+        if (token.getExpiresAt() == null) return Duration.ZERO;
+        Duration left = Duration.between(Instant.now(), token.getExpiresAt());
+        if (left.isNegative()) return Duration.ZERO;
+        return left.compareTo(maxTtl) > 0 ? maxTtl : left;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
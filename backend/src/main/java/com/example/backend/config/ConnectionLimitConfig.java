@@ -0,0 +1,146 @@
+package com.example.backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission limit in front of the connection pool, on by default when virtual threads are active
+ * (spring.threads.virtual.enabled on Java 21+). With a platform-thread Tomcat the 200 request threads bound how
+ * many callers can wait for a connection; with virtual threads every request can, so thousands of
+ * them would pile into the pool and each wait the full pool timeout. Here callers queue FIFO on a
+ * semaphore sized to the pool (app.db.connection-limit.permits, default the Hikari maximum pool
+ * size, plus the replica's when there is one) and give up after
+ * app.db.connection-limit.acquire-timeout-ms. The number of waiting callers is exported as
+ * db.connection.limit.waiting.
+ */
+@Configuration
+public class ConnectionLimitConfig {
+
+    // static: post-processors are created before regular beans
+    @Bean
+    public static BeanPostProcessor connectionLimitDataSourcePostProcessor(Environment env, ObjectProvider<MeterRegistry> meterRegistry) {
+        // the property alone is not enough: Boot only switches to virtual threads on Java 21+
+        boolean virtualThreads = Threading.VIRTUAL.isActive(env);
+        boolean enabled = env.getProperty("app.db.connection-limit.enabled", Boolean.class, virtualThreads);
+        int poolSize = env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        // with a read replica (ReadReplicaConfig) the routed DataSource fronts both pools
+        if (env.containsProperty("app.datasource.replica.url")) {
+            poolSize += env.getProperty("app.datasource.replica.hikari.maximum-pool-size", Integer.class, 10);
+        }
+        int permits = env.getProperty("app.db.connection-limit.permits", Integer.class, poolSize);
+        long acquireTimeoutMs = env.getProperty("app.db.connection-limit.acquire-timeout-ms", Long.class, 5000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!enabled || !(bean instanceof DataSource) || bean instanceof ConnectionLimitingDataSource) return bean;
+                return new ConnectionLimitingDataSource((DataSource) bean, permits, acquireTimeoutMs, meterRegistry);
+            }
+        };
+    }
+
+    static final class ConnectionLimitingDataSource extends DelegatingDataSource {
+        private final Semaphore permits;
+        private final long acquireTimeoutMs;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private volatile boolean gaugeRegistered;
+
+        ConnectionLimitingDataSource(DataSource target, int permits, long acquireTimeoutMs, ObjectProvider<MeterRegistry> meterRegistry) {
+            super(target);
+            this.permits = new Semaphore(permits, true);
+            this.acquireTimeoutMs = acquireTimeoutMs;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return releasingOnClose(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return releasingOnClose(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            registerGauge();
+            try {
+                if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException("no database connection available within " + acquireTimeoutMs + " ms ("
+                            + permits.getQueueLength() + " callers waiting)");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("interrupted while waiting for a database connection", e);
+            }
+        }
+
+        // The permit is returned exactly once, when the caller closes (returns) the connection.
+        private Connection releasingOnClose(Connection target) {
+            AtomicBoolean released = new AtomicBoolean();
+            InvocationHandler handler = (proxy, method, args) -> {
+                if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                    try {
+                        target.close();
+                    } finally {
+                        if (released.compareAndSet(false, true)) permits.release();
+                    }
+                    return null;
+                }
+                if (method.getName().equals("equals") && method.getParameterCount() == 1) return proxy == args[0];
+                if (method.getName().equals("hashCode") && method.getParameterCount() == 0) return System.identityHashCode(proxy);
+                return invoke(target, method, args);
+            };
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+        }
+
+        private static Object invoke(Connection target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        private void registerGauge() {
+            if (gaugeRegistered) return;
+            // the registry may not exist yet for connections taken during startup
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) return;
+            Gauge.builder("db.connection.limit.waiting", permits, Semaphore::getQueueLength)
+                    .description("Callers queued for a database connection permit")
+                    .register(registry);
+            gaugeRegistered = true;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.backend.config;
+
+import com.example.backend.service.FileStorageService;
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Spools multipart parts above spring.servlet.multipart.file-size-threshold into the upload
+ * store's .incoming directory, so FileStorageService renames them instead of copying. The path is
+ * made absolute and created here: Tomcat resolves a relative location against its own temp
+ * directory and rejects one that does not exist.
+ */
+@Configuration
+public class MultipartConfig {
+
+    @Bean
+    public MultipartConfigElement multipartConfigElement(MultipartProperties properties,
+                                                         @Value("${app.upload.dir:uploads}") String uploadDir) throws IOException {
+        Path incoming = Files.createDirectories(FileStorageService.incomingDir(uploadDir));
+        MultipartConfigFactory factory = new MultipartConfigFactory();
+        factory.setLocation(incoming.toString());
+        factory.setFileSizeThreshold(properties.getFileSizeThreshold());
+        factory.setMaxFileSize(properties.getMaxFileSize());
+        factory.setMaxRequestSize(properties.getMaxRequestSize());
+        return factory.createMultipartConfig();
+    }
+}
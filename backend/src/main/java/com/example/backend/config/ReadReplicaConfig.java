@@ -0,0 +1,110 @@
+package com.example.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+
+/**
+ * Read replica, active when app.datasource.replica.url is set: read-only transactions
+ * ({@code @Transactional(readOnly = true)}, including Spring Data's inherited finders) run on the
+ * replica pool, everything else on the primary (spring.datasource.*). See
+ * {@link ReplicaRoutingDataSource}, {@link ReplicaLagMonitor} and {@link ReadYourWrites}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+    private final Environment env;
+
+    public ReadReplicaConfig(Environment env) {
+        this.env = env;
+    }
+
+    /** The two Hikari pools; not DataSource beans, so the DataSource post-processors wrap only the router. */
+    static final class Pools implements AutoCloseable {
+        final HikariDataSource primary;
+        final HikariDataSource replica;
+
+        Pools(HikariDataSource primary, HikariDataSource replica) {
+            this.primary = primary;
+            this.replica = replica;
+        }
+
+        @Override
+        public void close() {
+            replica.close();
+            primary.close();
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    Pools replicaPools(DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = pool("primary", "spring.datasource.hikari", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), meterRegistry);
+        HikariDataSource replica = pool("replica", "app.datasource.replica.hikari", env.getProperty("app.datasource.replica.url"),
+                env.getProperty("app.datasource.replica.username", properties.determineUsername()),
+                env.getProperty("app.datasource.replica.password", properties.determinePassword()), meterRegistry);
+        return new Pools(primary, replica);
+    }
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(Pools pools, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ReplicaLagMonitor(pools.primary, pools.replica,
+                env.getProperty("app.datasource.replica.max-lag-ms", Long.class, 2000L),
+                env.getProperty("app.datasource.replica.simulated-lag-ms", Long.class, 0L),
+                meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(Pools pools, ReplicaLagMonitor lagMonitor) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(pools.primary, pools.replica, lagMonitor);
+        routing.afterPropertiesSet();
+        // defer choosing the pool until the first statement, when the read-only flag is known
+        LazyConnectionDataSourceProxy lazy = new LazyConnectionDataSourceProxy();
+        lazy.setDefaultAutoCommit(true);
+        lazy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        lazy.setTargetDataSource(routing);
+        lazy.afterPropertiesSet();
+        return lazy;
+    }
+
+    @Bean
+    ReadYourWrites readYourWrites() {
+        return new ReadYourWrites(Duration.ofMillis(env.getProperty("app.datasource.replica.sticky-ms", Long.class, 5000L)),
+                env.getProperty("app.datasource.replica.sticky-max-users", Long.class, 100_000L));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(readYourWrites()).addPathPatterns("/api/**");
+    }
+
+    private HikariDataSource pool(String name, String prefix, String url, String username, String password,
+                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(env).bind(prefix, Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) pool.setMetricRegistry(registry);
+        return pool;
+    }
+}
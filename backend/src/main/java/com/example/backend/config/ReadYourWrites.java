@@ -0,0 +1,83 @@
+package com.example.backend.config;
+
+import com.example.backend.auth.VerifiedToken;
+import com.example.backend.model.Emails;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Read-your-writes for replica routing: once a user sends a write request (any method other than
+ * GET, HEAD and OPTIONS) their reads go to the primary for app.datasource.replica.sticky-ms, so
+ * they see their own change even if the replica has not replayed it yet. The user is marked when
+ * the write arrives, since the response is committed before afterCompletion runs and the client
+ * could read again before then; afterCompletion restarts the window so a slow write still gets a
+ * full one. A write that fails costs that user a window of primary reads. The user is the
+ * verified principal, else the studentEmail/teacherEmail request parameter or path variable the
+ * legacy endpoints take. Per instance: behind a load balancer the window only holds on the
+ * instance that served the write, unless sessions are sticky.
+ */
+public class ReadYourWrites implements AsyncHandlerInterceptor {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window, long maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    /** True while the current request's user wrote within the window. */
+    static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String user = userKey(request);
+        if (user == null) return true;
+        if (recentWriters.getIfPresent(user) != null) PRIMARY_REQUIRED.set(Boolean.TRUE);
+        if (!isReadMethod(request.getMethod())) recentWriters.put(user, Boolean.TRUE);
+        return true;
+    }
+
+    // The request thread goes back to the pool without afterCompletion (that runs on the async
+    // dispatch, after preHandle has set the flag again there), so clear it here.
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        PRIMARY_REQUIRED.remove();
+        if (isReadMethod(request.getMethod())) return;
+        String user = userKey(request);
+        if (user != null) recentWriters.put(user, Boolean.TRUE);
+    }
+
+    private static boolean isReadMethod(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static String userKey(HttpServletRequest request) {
+        if (request.getAttribute("firebaseUser") instanceof VerifiedToken token && token.getEmail() != null) {
+            return Emails.normalize(token.getEmail());
+        }
+        String email = request.getParameter("studentEmail");
+        if (email == null) email = request.getParameter("teacherEmail");
+        if (email == null && request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> vars) {
+            email = (String) vars.get("teacherEmail");
+        }
+        return Emails.normalize(email);
+    }
+}
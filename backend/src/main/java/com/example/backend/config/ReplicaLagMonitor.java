@@ -0,0 +1,81 @@
+package com.example.backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Measures replication lag every app.datasource.replica.lag-check-ms and marks the replica
+ * unusable for reads while it is more than app.datasource.replica.max-lag-ms behind or cannot be
+ * queried. A replica that has replayed everything up to the primary's current WAL position has
+ * no lag, however old its last replayed transaction (an idle primary sends nothing to replay).
+ * A server that is not in recovery is treated as a stand-in for local testing, lagging by
+ * app.datasource.replica.simulated-lag-ms. Exported as db.replica.lag (ms) and db.replica.usable.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String REPLICA_LAG_SQL =
+            "SELECT pg_is_in_recovery() AS in_recovery, " +
+            "CASE WHEN pg_is_in_recovery() THEN pg_wal_lsn_diff(cast(? as pg_lsn), pg_last_wal_replay_lsn()) END AS bytes_behind, " +
+            "CASE WHEN pg_is_in_recovery() THEN extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000 END AS replay_age_ms";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    private final long simulatedLagMs;
+
+    // NaN until the first check and while the replica is unreachable
+    private volatile double lagMs = Double.NaN;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMs, long simulatedLagMs, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+        this.simulatedLagMs = simulatedLagMs;
+        if (meterRegistry != null) {
+            Gauge.builder("db.replica.lag", this, m -> m.lagMs).baseUnit("milliseconds")
+                    .description("Replication lag of the read replica").register(meterRegistry);
+            Gauge.builder("db.replica.usable", this, m -> m.usable ? 1 : 0)
+                    .description("1 while read-only transactions are routed to the replica").register(meterRegistry);
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-ms:1000}")
+    public void check() {
+        double lag;
+        try {
+            String primaryLsn = primary.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+            Map<String, Object> row = replica.queryForMap(REPLICA_LAG_SQL, primaryLsn);
+            if (!Boolean.TRUE.equals(row.get("in_recovery"))) {
+                lag = simulatedLagMs;
+            } else {
+                Number bytesBehind = (Number) row.get("bytes_behind");
+                Number replayAge = (Number) row.get("replay_age_ms");
+                if (bytesBehind != null && bytesBehind.longValue() <= 0) lag = 0;
+                else lag = replayAge == null ? Double.NaN : replayAge.doubleValue();
+            }
+        } catch (RuntimeException e) {
+            if (usable || !Double.isNaN(lagMs)) log.warn("replica lag check failed, reads go to the primary: {}", e.getMessage());
+            lag = Double.NaN;
+        }
+        boolean nowUsable = !Double.isNaN(lag) && lag <= maxLagMs;
+        if (nowUsable != usable) {
+            log.info("read replica {} (lag {} ms, max {} ms)", nowUsable ? "in use" : "bypassed", lag, maxLagMs);
+        }
+        lagMs = lag;
+        usable = nowUsable;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.backend.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the
+ * primary. Reads fall back to the primary while the replica lags or is unreachable
+ * ({@link ReplicaLagMonitor}) and for a user who has just written ({@link ReadYourWrites}).
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction manager asks for a connection
+ * before the read-only flag is bound, so the target is only chosen at the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return Target.PRIMARY;
+        if (ReadYourWrites.isPrimaryRequired() || !lagMonitor.isReplicaUsable()) return Target.PRIMARY;
+        return Target.REPLICA;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs (outbox worker and other @Scheduled maintenance tasks).
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
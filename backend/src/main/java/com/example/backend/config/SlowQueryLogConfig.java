@@ -0,0 +1,129 @@
+package com.example.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Slow-query log: every JDBC DataSource is wrapped in a datasource-proxy that times each
+ * statement and logs those slower than app.db.slow-query.threshold-ms to the "slow-query" logger,
+ * with their bind parameters (app.db.slow-query.log-parameters=false omits them). Each slow
+ * statement also increments the db.slow.queries counter.
+ */
+@Configuration
+public class SlowQueryLogConfig {
+
+    private static final Logger slowLog = LoggerFactory.getLogger("slow-query");
+
+    // static: post-processors are created before regular beans
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(Environment env, ObjectProvider<MeterRegistry> meterRegistry) {
+        long thresholdMs = env.getProperty("app.db.slow-query.threshold-ms", Long.class, 200L);
+        boolean logParameters = env.getProperty("app.db.slow-query.log-parameters", Boolean.class, true);
+        int maxParameterLength = env.getProperty("app.db.slow-query.max-parameter-length", Integer.class, 200);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource || thresholdMs < 0) return bean;
+                return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                        .listener(new SlowQueryListener(thresholdMs, logParameters, maxParameterLength, meterRegistry))
+                        .build();
+            }
+        };
+    }
+
+    private static final class SlowQueryListener implements QueryExecutionListener {
+        private final long thresholdMs;
+        private final boolean logParameters;
+        private final int maxParameterLength;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private volatile Counter slowQueries;
+
+        SlowQueryListener(long thresholdMs, boolean logParameters, int maxParameterLength, ObjectProvider<MeterRegistry> meterRegistry) {
+            this.thresholdMs = thresholdMs;
+            this.logParameters = logParameters;
+            this.maxParameterLength = maxParameterLength;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            long elapsed = execInfo.getElapsedTime();
+            if (elapsed < thresholdMs) return;
+            Counter counter = counter();
+            if (counter != null) counter.increment();
+            if (!slowLog.isWarnEnabled()) return;
+            for (QueryInfo query : queryInfoList) {
+                if (logParameters && !query.getParametersList().isEmpty()) {
+                    slowLog.warn("{} ms{} [{}] params={}", elapsed, execInfo.isBatch() ? " (batch " + execInfo.getBatchSize() + ")" : "",
+                            query.getQuery(), formatParameters(query.getParametersList()));
+                } else {
+                    slowLog.warn("{} ms{} [{}]", elapsed, execInfo.isBatch() ? " (batch " + execInfo.getBatchSize() + ")" : "",
+                            query.getQuery());
+                }
+            }
+        }
+
+        private Counter counter() {
+            Counter c = slowQueries;
+            if (c == null) {
+                // the registry may not exist yet for statements run during startup
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                if (registry == null) return null;
+                c = Counter.builder("db.slow.queries")
+                        .description("JDBC statements slower than app.db.slow-query.threshold-ms")
+                        .register(registry);
+                slowQueries = c;
+            }
+            return c;
+        }
+
+        // Bind values per execution, e.g. [(1, 'abc'), (2, 'def')]; long values are truncated.
+        private String formatParameters(List<List<ParameterSetOperation>> executions) {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < executions.size(); i++) {
+                if (i > 0) sb.append(", ");
+                // only the first few executions of a large batch
+                if (i == 5) {
+                    sb.append("... ").append(executions.size() - 5).append(" more");
+                    break;
+                }
+                sb.append('(');
+                List<ParameterSetOperation> ops = executions.get(i);
+                for (int j = 0; j < ops.size(); j++) {
+                    if (j > 0) sb.append(", ");
+                    Object[] args = ops.get(j).getArgs();
+                    sb.append(args.length > 1 ? format(args[1]) : "?");
+                }
+                sb.append(')');
+            }
+            return sb.append(']').toString();
+        }
+
+        private String format(Object value) {
+            if (value == null) return "null";
+            String s = value instanceof byte[] ? "<" + ((byte[]) value).length + " bytes>" : String.valueOf(value);
+            if (s.length() > maxParameterLength) s = s.substring(0, maxParameterLength) + "...";
+            return value instanceof CharSequence ? "'" + s + "'" : s;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.backend.controller;
+
+import com.example.backend.model.StoredFile;
+import com.example.backend.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Serves stored upload content by SHA-256.
+ *
+ * Bytes never pass through the JVM heap: under Tomcat the response is handed to the connector's
+ * sendfile support, otherwise it is written with FileChannel.transferTo. Since content is addressed
+ * by hash it never changes, so the hash is a strong ETag and responses are cacheable as immutable.
+ * Single byte ranges are honoured (multi-range requests get the whole file).
+ *
+ * The stored content type comes from the uploader, so it is only echoed (and inline display only
+ * allowed) for {@link #INLINE_TYPES}; anything else is sent as an application/octet-stream
+ * attachment, and nosniff stops the browser from guessing its way back to HTML.
+ */
+@RestController
+@RequestMapping("/api/files")
+public class FileController {
+
+    // Tomcat request attributes for handing a file to the connector's sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // below this a plain write is cheaper than setting up sendfile (same as Tomcat's DefaultServlet)
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    // content types a browser can display without running script from the upload
+    private static final Set<String> INLINE_TYPES = Set.of(
+            MediaType.APPLICATION_PDF_VALUE,
+            MediaType.IMAGE_PNG_VALUE,
+            MediaType.IMAGE_JPEG_VALUE,
+            MediaType.IMAGE_GIF_VALUE,
+            "image/webp");
+
+    private final FileStorageService fileStorageService;
+
+    public FileController(FileStorageService fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    /** Download link for stored content, or null for uploads made before content addressing. */
+    public static String downloadUrl(String sha256, String fileName) {
+        if (sha256 == null) return null;
+        String url = "/api/files/" + sha256;
+        return fileName == null ? url : url + "?name=" + URLEncoder.encode(fileName, StandardCharsets.UTF_8);
+    }
+
+    // Lets a client check whether content is already stored (by SHA-256) before uploading it;
+    // if so it can pass fileHash instead of the file to the upload endpoints.
+    @RequestMapping(value = "/{sha256}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> exists(@PathVariable String sha256) {
+        return fileStorageService.exists(sha256) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{sha256}")
+    public void download(@PathVariable String sha256,
+                         @RequestParam(required = false) String name,
+                         @RequestParam(defaultValue = "false") boolean inline,
+                         HttpServletRequest req,
+                         HttpServletResponse res) throws IOException {
+        Optional<StoredFile> stored = fileStorageService.lookup(sha256);
+        if (stored.isEmpty()) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        StoredFile file = stored.get();
+        String etag = "\"" + file.getSha256() + "\"";
+        long size = file.getSize();
+
+        res.setHeader("X-Content-Type-Options", "nosniff");
+        res.setHeader(HttpHeaders.ETAG, etag);
+        res.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        res.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etagMatches(req.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String contentType = displayableType(file.getContentType());
+        res.setContentType(contentType == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : contentType);
+        ContentDisposition.Builder disposition = inline && contentType != null ? ContentDisposition.inline() : ContentDisposition.attachment();
+        if (name != null && !name.isBlank()) disposition.filename(name, StandardCharsets.UTF_8);
+        res.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.build().toString());
+
+        long start = 0;
+        long end = size - 1;
+        String range = req.getHeader(HttpHeaders.RANGE);
+        String ifRange = req.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] r = parseRange(range, size);
+            if (r == null) {
+                res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (r.length == 2) {
+                start = r[0];
+                end = r[1];
+                res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        long length = end - start + 1;
+        res.setContentLengthLong(length);
+        if (length <= 0) return;
+
+        Path path = fileStorageService.pathFor(file.getSha256());
+        if (length >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            // the connector streams the file after this method returns
+            req.setAttribute(SENDFILE_FILENAME, path.toString());
+            req.setAttribute(SENDFILE_START, start);
+            req.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = in.transferTo(position, remaining, out);
+                if (sent <= 0) break;
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // The stored type without parameters if it is one of INLINE_TYPES, otherwise null.
+    private static String displayableType(String contentType) {
+        if (contentType == null) return null;
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            String bare = (type.getType() + "/" + type.getSubtype()).toLowerCase(Locale.ROOT);
+            return INLINE_TYPES.contains(bare) ? bare : null;
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals("*") || c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    // Returns {start, end} (inclusive) for a single satisfiable range, an empty array if the header
+    // should be ignored (malformed or multiple ranges), or null if the range is unsatisfiable.
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=")) return new long[0];
+        String spec = header.substring(6).trim();
+        if (spec.contains(",")) return new long[0];
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            String from = spec.substring(0, dash).trim();
+            String to = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (from.isEmpty()) {
+                // suffix range: the last N bytes
+                if (to.isEmpty()) return new long[0];
+                long suffix = Long.parseLong(to);
+                if (suffix <= 0) return null;
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(from);
+                end = to.isEmpty() ? size - 1 : Math.min(Long.parseLong(to), size - 1);
+                if (end < start) return to.isEmpty() ? null : new long[0];
+            }
+            if (start >= size) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
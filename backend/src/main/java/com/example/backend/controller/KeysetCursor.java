@@ -0,0 +1,47 @@
+package com.example.backend.controller;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset pagination cursor of the form "createdAt,id" (ISO local date-time, then the row id).
+ * Pages are ordered newest first, so the cursor points at the last row of the previous page.
+ */
+public final class KeysetCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    private KeysetCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public Long getId() { return id; }
+
+    // Returns null for a missing cursor (first page); throws IllegalArgumentException if malformed.
+    public static KeysetCursor parse(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        int comma = raw.lastIndexOf(',');
+        if (comma <= 0) throw new IllegalArgumentException("invalid cursor: " + raw);
+        try {
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, comma).trim());
+            Long id = Long.parseLong(raw.substring(comma + 1).trim());
+            return new KeysetCursor(createdAt, id);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("invalid cursor: " + raw, e);
+        }
+    }
+
+    public static String encode(LocalDateTime createdAt, Long id) {
+        return createdAt + "," + id;
+    }
+
+    static int clampLimit(Integer limit, int defaultLimit, int maxLimit) {
+        if (limit == null || limit <= 0) return defaultLimit;
+        return Math.min(limit, maxLimit);
+    }
+}
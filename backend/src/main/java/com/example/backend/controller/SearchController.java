@@ -0,0 +1,167 @@
+package com.example.backend.controller;
+
+import com.example.backend.auth.VerifiedToken;
+import com.example.backend.repository.AssignmentRepository;
+import com.example.backend.repository.StudentQueryRepository;
+import com.example.backend.service.IdentityService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ranked full-text search over student queries and assignments, scoped to the caller: a teacher
+ * sees their own queries and assignments, a student their own queries and the assignments of
+ * the classes they are enrolled in. Results are ordered by relevance and paged by offset; the
+ * X-Next-Cursor header carries the next offset. Snippets are HTML-escaped with matches in <mark>.
+ */
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private static final int PAGE_DEFAULT = 20;
+    private static final int PAGE_MAX = 100;
+    // relevance paging past this point is not useful and makes the database rank every match
+    private static final int MAX_OFFSET = 1000;
+
+    private final StudentQueryRepository queryRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final IdentityService identityService;
+
+    public SearchController(StudentQueryRepository queryRepository,
+                            AssignmentRepository assignmentRepository,
+                            IdentityService identityService) {
+        this.queryRepository = queryRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.identityService = identityService;
+    }
+
+    @GetMapping("/queries")
+    public ResponseEntity<List<QueryHitDto>> searchQueries(@RequestParam String q,
+                                                           @RequestParam(required = false) String teacherEmail,
+                                                           @RequestParam(required = false) String studentEmail,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal) {
+        Optional<Scope> scope = resolveScope(principal, teacherEmail, studentEmail);
+        if (scope.isEmpty()) return ResponseEntity.status(principal != null ? HttpStatus.FORBIDDEN : HttpStatus.BAD_REQUEST).build();
+        Integer offset = parseOffset(cursor);
+        if (offset == null) return ResponseEntity.badRequest().build();
+        if (q.isBlank()) return ResponseEntity.ok(List.of());
+        int pageSize = KeysetCursor.clampLimit(limit, PAGE_DEFAULT, PAGE_MAX);
+
+        List<StudentQueryRepository.SearchRow> rows = queryRepository.search(q, scope.get().teacherId, scope.get().studentId, pageSize, offset);
+        List<QueryHitDto> hits = rows.stream().map(r -> {
+            QueryHitDto d = new QueryHitDto();
+            d.id = String.valueOf(r.getId());
+            d.studentEmail = r.getStudentEmail();
+            d.messageSnippet = r.getMessageSnippet();
+            d.replySnippet = r.getReplySnippet();
+            d.date = r.getCreatedAt() == null ? null : r.getCreatedAt().toLocalDate().toString();
+            d.rank = r.getRank();
+            return d;
+        }).toList();
+        return withNextOffset(rows.size(), pageSize, offset).body(hits);
+    }
+
+    @GetMapping("/assignments")
+    public ResponseEntity<List<AssignmentHitDto>> searchAssignments(@RequestParam String q,
+                                                                    @RequestParam(required = false) String teacherEmail,
+                                                                    @RequestParam(required = false) String studentEmail,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer limit,
+                                                                    @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal) {
+        Optional<Scope> scope = resolveScope(principal, teacherEmail, studentEmail);
+        if (scope.isEmpty()) return ResponseEntity.status(principal != null ? HttpStatus.FORBIDDEN : HttpStatus.BAD_REQUEST).build();
+        Integer offset = parseOffset(cursor);
+        if (offset == null) return ResponseEntity.badRequest().build();
+        if (q.isBlank()) return ResponseEntity.ok(List.of());
+        int pageSize = KeysetCursor.clampLimit(limit, PAGE_DEFAULT, PAGE_MAX);
+
+        List<AssignmentRepository.SearchRow> rows = assignmentRepository.search(q, scope.get().teacherId, scope.get().studentId, pageSize, offset);
+        List<AssignmentHitDto> hits = rows.stream().map(r -> {
+            AssignmentHitDto d = new AssignmentHitDto();
+            d.id = r.getId();
+            d.title = r.getTitle();
+            d.subjectId = r.getSubjectId();
+            d.titleSnippet = r.getTitleSnippet();
+            d.descriptionSnippet = r.getDescriptionSnippet();
+            d.createdAt = r.getCreatedAt() == null ? null : r.getCreatedAt().toString();
+            d.rank = r.getRank();
+            return d;
+        }).toList();
+        return withNextOffset(rows.size(), pageSize, offset).body(hits);
+    }
+
+    // The verified principal alone decides the scope when present: email parameters are then refused,
+    // so a signed-in user cannot search as someone else. Without a principal, the explicit parameters.
+    private Optional<Scope> resolveScope(VerifiedToken principal, String teacherEmail, String studentEmail) {
+        if (principal != null) {
+            if (StringUtils.hasText(teacherEmail) || StringUtils.hasText(studentEmail)) return Optional.empty();
+            Optional<IdentityService.Identity> t = identityService.teacher(principal.getEmail());
+            if (t.isPresent()) return Optional.of(new Scope(t.get().id, null));
+            return identityService.student(principal.getEmail()).map(s -> new Scope(null, s.id));
+        }
+        if (teacherEmail != null && !teacherEmail.isBlank()) {
+            return identityService.teacher(teacherEmail).map(t -> new Scope(t.id, null));
+        }
+        if (studentEmail != null && !studentEmail.isBlank()) {
+            return identityService.student(studentEmail).map(s -> new Scope(null, s.id));
+        }
+        return Optional.empty();
+    }
+
+    private static Integer parseOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0;
+        try {
+            int offset = Integer.parseInt(cursor.trim());
+            return offset < 0 || offset > MAX_OFFSET ? null : offset;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder withNextOffset(int returned, int pageSize, int offset) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (returned == pageSize && offset + pageSize <= MAX_OFFSET) {
+            ok.header(KeysetCursor.NEXT_CURSOR_HEADER, String.valueOf(offset + pageSize));
+        }
+        return ok;
+    }
+
+    private static final class Scope {
+        final Long teacherId;
+        final Long studentId;
+
+        Scope(Long teacherId, Long studentId) {
+            this.teacherId = teacherId;
+            this.studentId = studentId;
+        }
+    }
+
+    public static class QueryHitDto {
+        public String id;
+        public String studentEmail;
+        public String messageSnippet;
+        public String replySnippet;
+        public String date;
+        public Double rank;
+    }
+
+    public static class AssignmentHitDto {
+        public Long id;
+        public String title;
+        public String subjectId;
+        public String titleSnippet;
+        public String descriptionSnippet;
+        public String createdAt;
+        public Double rank;
+    }
+}
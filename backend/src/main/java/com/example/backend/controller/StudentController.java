@@ -1,13 +1,23 @@
 package com.example.backend.controller;
 
+import com.example.backend.auth.VerifiedToken;
 import com.example.backend.model.*;
 import com.example.backend.repository.*;
+import com.example.backend.service.AssignmentService;
 import com.example.backend.service.FileStorageService;
+import com.example.backend.service.IdentityService;
+import com.example.backend.service.NotificationStreamService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -20,6 +30,12 @@ public class StudentController {
 
     private static final Logger log = LoggerFactory.getLogger(StudentController.class);
 
+    private static final int ASSIGNMENT_PAGE_DEFAULT = 50;
+    private static final int ASSIGNMENT_PAGE_MAX = 200;
+    // stand-ins for a missing from/to in attendance date-range queries
+    private static final LocalDate OPEN_RANGE_START = LocalDate.of(1900, 1, 1);
+    private static final LocalDate OPEN_RANGE_END = LocalDate.of(9999, 12, 31);
+
     private final StudentRepository studentRepository;
     private final AssignmentRepository assignmentRepository;
     private final AttendanceRepository attendanceRepository;
@@ -30,6 +46,10 @@ public class StudentController {
     private final FileStorageService fileStorageService;
     private final SubmissionRepository submissionRepository;
     private final AssignmentSubmissionRepository assignmentSubmissionRepository;
+    private final NotificationStreamService notificationStream;
+    private final IdentityService identityService;
+    private final AttendanceSummaryRepository attendanceSummaryRepository;
+    private final AssignmentService assignmentService;
 
     public StudentController(StudentRepository studentRepository,
                              AssignmentRepository assignmentRepository,
@@ -40,7 +60,11 @@ public class StudentController {
                              TeacherRepository teacherRepository,
                              EnrollmentRepository enrollmentRepository,
                              SubmissionRepository submissionRepository,
-                             AssignmentSubmissionRepository assignmentSubmissionRepository) {
+                             AssignmentSubmissionRepository assignmentSubmissionRepository,
+                             NotificationStreamService notificationStream,
+                             IdentityService identityService,
+                             AttendanceSummaryRepository attendanceSummaryRepository,
+                             AssignmentService assignmentService) {
         this.studentRepository = studentRepository;
         this.assignmentRepository = assignmentRepository;
         this.attendanceRepository = attendanceRepository;
@@ -51,52 +75,70 @@ public class StudentController {
         this.enrollmentRepository = enrollmentRepository;
         this.submissionRepository = submissionRepository;
         this.assignmentSubmissionRepository = assignmentSubmissionRepository;
+        this.notificationStream = notificationStream;
+        this.identityService = identityService;
+        this.attendanceSummaryRepository = attendanceSummaryRepository;
+        this.assignmentService = assignmentService;
+    }
+
+    // The student a request acts for: the verified principal set by FirebaseAuthFilter if there is
+    // one (the parameters are then ignored), else the explicit id/email parameters, else
+    // (unauthenticated demo use) the student with the lowest id.
+    // Every path is a cache hit or a single-row query.
+    private Optional<IdentityService.Identity> currentStudent(VerifiedToken principal, Long studentId, String studentEmail) {
+        // a verified caller only ever acts as themself; empty if they are not a student
+        if (principal != null) return identityService.student(principal.getEmail());
+        if (studentId != null) {
+            Optional<IdentityService.Identity> byId = studentRepository.findIdentityById(studentId).map(IdentityService.Identity::of);
+            if (byId.isPresent()) return byId;
+        }
+        if (studentEmail != null && !studentEmail.isBlank()) {
+            Optional<IdentityService.Identity> byEmail = identityService.student(studentEmail);
+            if (byEmail.isPresent()) return byEmail;
+        }
+        return studentRepository.findFirstByOrderByIdAsc().map(IdentityService.Identity::of);
     }
 
     @GetMapping("/attendance")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<AttendanceDto>> getAttendance(@RequestParam(required = false) String subjectId,
                                                                @RequestParam(required = false) String studentEmail,
                                                                @RequestParam(required = false) Long studentId,
-                                                               @RequestParam(required = false) String teacherEmail) {
+                                                               @RequestParam(required = false) String teacherEmail,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                               @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal) {
         try {
-            // Prefer explicit student identity if provided (email or id). Fallback to first student only for demo.
             log.info("getAttendance called with subjectId={}, studentEmail={}, studentId={}", subjectId, studentEmail, studentId);
-            Student student = null;
-            if (studentId != null) {
-                Optional<Student> sOpt = studentRepository.findById(studentId);
-                if (sOpt.isPresent()) student = sOpt.get();
-            }
-            if (student == null && studentEmail != null && !studentEmail.isBlank()) {
-                student = studentRepository.findByEmailIgnoreCase(studentEmail.trim()).orElse(null);
-            }
-            if (student == null) {
-                List<Student> students = studentRepository.findAll();
-                if (students.isEmpty()) return ResponseEntity.ok(List.of());
-                student = students.get(0);
-            }
-
-            List<Attendance> all = attendanceRepository.findByStudent(student);
-            if (teacherEmail != null && !teacherEmail.isBlank()) {
-                String tnorm = teacherEmail.trim().toLowerCase();
-                all = all.stream().filter(a -> a.getTeacher() != null && tnorm.equals(a.getTeacher().getEmail() == null ? null : a.getTeacher().getEmail().trim().toLowerCase())).toList();
-            }
-            
-            if (subjectId != null && !subjectId.isBlank()) {
-                all = all.stream().filter(a -> subjectId.equals(a.getSubjectId())).toList();
+            Optional<IdentityService.Identity> current = currentStudent(principal, studentId, studentEmail);
+            if (current.isEmpty()) return ResponseEntity.ok(List.of());
+            IdentityService.Identity student = current.get();
+
+            String subject = subjectId == null || subjectId.isBlank() ? null : subjectId;
+
+            List<AttendanceRepository.SubjectAttendanceCount> counts;
+            if (from == null && to == null) {
+                // all-time counts come from the precomputed attendance_summary rows
+                Long teacherId = null;
+                if (teacherEmail != null && !teacherEmail.isBlank()) {
+                    Optional<IdentityService.Identity> teacher = identityService.teacher(teacherEmail);
+                    if (teacher.isEmpty()) return ResponseEntity.ok(List.of());
+                    teacherId = teacher.get().id;
+                }
+                counts = attendanceSummaryRepository.countBySubject(student.id, teacherId, subject);
+            } else {
+                // a date range needs the raw rows, aggregated by subjectId in the database; an open
+                // end is bounded so the query still prunes to the partitions in range
+                counts = attendanceRepository.countBySubject(student.id, Emails.normalize(teacherEmail), subject,
+                        from == null ? OPEN_RANGE_START : from, to == null ? OPEN_RANGE_END : to);
             }
-
-            // aggregate by subjectId
-            var grouped = all.stream().collect(java.util.stream.Collectors.groupingBy(Attendance::getSubjectId));
-            List<AttendanceDto> response = grouped.entrySet().stream().map(e -> {
-                String subj = e.getKey() == null ? "unknown" : e.getKey();
-                long total = e.getValue().size();
-                long present = e.getValue().stream().filter(Attendance::isPresent).count();
-                AttendanceDto d = new AttendanceDto();
-                d.subject = subj;
-                d.present = (int) present;
-                d.total = (int) total;
-                return d;
-            }).toList();
+            List<AttendanceDto> response = counts.stream().map(c -> {
+                        AttendanceDto d = new AttendanceDto();
+                        d.subject = c.getSubjectId() == null || c.getSubjectId().isEmpty() ? "unknown" : c.getSubjectId();
+                        d.present = c.getPresent() == null ? 0 : c.getPresent().intValue();
+                        d.total = c.getTotal() == null ? 0 : c.getTotal().intValue();
+                        return d;
+                    }).toList();
             return ResponseEntity.ok(response);
         } catch (Exception ex) {
             log.error("error in getAttendance for studentEmail={} subjectId={}", studentEmail, subjectId, ex);
@@ -108,7 +150,9 @@ public class StudentController {
     public ResponseEntity<?> submitAssignment(@RequestParam("assignmentId") String assignmentId,
                                               @RequestParam("studentEmail") String studentEmail,
                                               @RequestParam(required = false) String submissionNotes,
-                                              @RequestParam(value = "file", required = false) MultipartFile file) throws Exception {
+                                              @RequestParam(value = "file", required = false) MultipartFile file,
+                                              @RequestParam(required = false) String fileHash,
+                                              @RequestParam(required = false) String fileName) throws Exception {
         // validate assignment exists
         Long aid;
         try { aid = Long.parseLong(assignmentId); } catch (Exception e) { return ResponseEntity.badRequest().body("invalid assignmentId"); }
@@ -116,12 +160,11 @@ public class StudentController {
         if (aOpt.isEmpty()) return ResponseEntity.badRequest().body("assignment not found");
 
         // find student
-        String studentEmailNorm = studentEmail.trim().toLowerCase();
-        Optional<Student> studentOpt = studentRepository.findByEmailIgnoreCase(studentEmailNorm);
+        Optional<IdentityService.Identity> studentOpt = identityService.student(studentEmail);
         if (studentOpt.isEmpty()) {
             return ResponseEntity.badRequest().body("Student not found");
         }
-        Student student = studentOpt.get();
+        Student student = identityService.studentRef(studentOpt.get());
 
         // Check if student already submitted this assignment
         Optional<AssignmentSubmission> existingSubmission = assignmentSubmissionRepository.findByStudentAndAssignment(student, aOpt.get());
@@ -134,61 +177,80 @@ public class StudentController {
         submission.setAssignment(aOpt.get());
         submission.setSubmissionNotes(submissionNotes);
         
-        // store file if provided
+        // store file if provided, or reference already-stored content by its hash
+        // (the reference to it is counted in the same transaction that saves the row below)
+        FileStorageService.StoredContent stored = null;
         if (file != null && !file.isEmpty()) {
-            String path = fileStorageService.storeFile(file);
-            submission.setFilePath(path);
+            stored = fileStorageService.store(file);
+        } else if (fileHash != null && !fileHash.isBlank()) {
+            stored = fileStorageService.existing(fileHash, fileName).orElse(null);
+            if (stored == null) return ResponseEntity.badRequest().body("unknown fileHash");
+        }
+        if (stored != null) {
+            submission.setFilePath(stored.path.toString());
+            submission.setFileHash(stored.sha256);
+            submission.setFileName(stored.fileName);
         }
         
-        assignmentSubmissionRepository.save(submission);
+        assignmentService.submit(submission, stored);
         
-        return ResponseEntity.ok().build();
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (submission.getFileHash() != null) ok.header(FileStorageService.CONTENT_HASH_HEADER, submission.getFileHash());
+        return ok.build();
     }
 
     @GetMapping("/assignments")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<AssignmentDto>> getAssignments(@RequestParam(required = false) String subjectId,
-                                                              @RequestParam(required = false) String studentEmail) {
+                                                              @RequestParam(required = false) String studentEmail,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal) {
         try {
-            // Find the current student
-            Student student = null;
-            if (studentEmail != null && !studentEmail.isBlank()) {
-                student = studentRepository.findByEmailIgnoreCase(studentEmail.trim()).orElse(null);
-            }
-            if (student == null) {
-                List<Student> students = studentRepository.findAll();
-                if (students.isEmpty()) return ResponseEntity.ok(List.of());
-                student = students.get(0);
+            Optional<IdentityService.Identity> current = currentStudent(principal, null, studentEmail);
+            if (current.isEmpty()) return ResponseEntity.ok(List.of());
+            IdentityService.Identity student = current.get();
+
+            KeysetCursor after;
+            try {
+                after = KeysetCursor.parse(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
             }
+            int pageSize = KeysetCursor.clampLimit(limit, ASSIGNMENT_PAGE_DEFAULT, ASSIGNMENT_PAGE_MAX);
+            String subject = subjectId == null || subjectId.isBlank() ? null : subjectId;
 
-            List<Assignment> assignments;
-            if (subjectId != null && !subjectId.isBlank()) {
-                assignments = assignmentRepository.findBySubjectId(subjectId);
-            } else {
-                assignments = assignmentRepository.findAll();
-            }
+            // One statement: assignments with this student's submission left-joined in
+            List<AssignmentRepository.StudentFeedRow> rows = assignmentRepository.findFeedForStudent(
+                    student.id, subject,
+                    after == null ? null : after.getCreatedAt(),
+                    after == null ? null : after.getId(),
+                    PageRequest.of(0, pageSize));
 
-            final Student finalStudent = student; // Make student effectively final
-            List<AssignmentDto> dtoList = assignments.stream().map(a -> {
+            List<AssignmentDto> dtoList = rows.stream().map(r -> {
                 AssignmentDto dto = new AssignmentDto();
-                dto.id = a.getId();
-                dto.title = a.getTitle();
-                dto.description = a.getDescription();
-                dto.subjectId = a.getSubjectId();
-                dto.filePath = a.getFilePath();
-                dto.createdAt = a.getCreatedAt().toString();
-                
-                // Check if student has submitted this assignment
-                Optional<AssignmentSubmission> submission = assignmentSubmissionRepository.findByStudentAndAssignment(finalStudent, a);
-                dto.submitted = submission.isPresent();
-                if (submission.isPresent()) {
-                    dto.submissionNotes = submission.get().getSubmissionNotes();
-                    dto.submittedAt = submission.get().getSubmittedAt().toString();
+                dto.id = r.getId();
+                dto.title = r.getTitle();
+                dto.description = r.getDescription();
+                dto.subjectId = r.getSubjectId();
+                dto.filePath = r.getFilePath();
+                dto.fileName = r.getFileName();
+                dto.downloadUrl = FileController.downloadUrl(r.getFileHash(), r.getFileName());
+                dto.createdAt = r.getCreatedAt().toString();
+                dto.submitted = r.getSubmissionId() != null;
+                if (dto.submitted) {
+                    dto.submissionNotes = r.getSubmissionNotes();
+                    dto.submittedAt = r.getSubmittedAt() == null ? null : r.getSubmittedAt().toString();
                 }
-                
                 return dto;
             }).toList();
-            
-            return ResponseEntity.ok(dtoList);
+
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+            if (rows.size() == pageSize) {
+                AssignmentRepository.StudentFeedRow last = rows.get(rows.size() - 1);
+                ok.header(KeysetCursor.NEXT_CURSOR_HEADER, KeysetCursor.encode(last.getCreatedAt(), last.getId()));
+            }
+            return ok.body(dtoList);
         } catch (Exception ex) {
             log.error("error fetching assignments for studentEmail={} subjectId={}", studentEmail, subjectId, ex);
             return ResponseEntity.status(500).body(List.of());
@@ -206,19 +268,38 @@ public class StudentController {
         StudentQuery q = new StudentQuery();
         q.setMessage(body.message);
         // Attach student if provided
-        if (body.studentEmail != null) {
-            Optional<Student> sOpt = studentRepository.findByEmail(body.studentEmail);
-            sOpt.ifPresent(q::setStudent);
-        }
+        Optional<IdentityService.Identity> sOpt = identityService.student(body.studentEmail);
+        sOpt.ifPresent(s -> q.setStudent(identityService.studentRef(s)));
         // Attach teacher if provided
-        if (body.teacherId != null) {
-            Optional<Teacher> tOpt = teacherRepository.findByEmail(body.teacherId);
-            tOpt.ifPresent(q::setTeacher);
-        }
+        identityService.teacher(body.teacherId).ifPresent(t -> q.setTeacher(identityService.teacherRef(t)));
         queryRepository.save(q);
+        if (q.getTeacher() != null) {
+            QueryDto event = new QueryDto();
+            event.id = String.valueOf(q.getId());
+            event.studentEmail = sOpt.map(s -> s.email).orElse(null);
+            event.message = q.getMessage();
+            event.date = q.getCreatedAt().toLocalDate().toString();
+            notificationStream.publish(NotificationStreamService.teacherKey(q.getTeacher().getId()), "query", event);
+        }
         return ResponseEntity.ok().build();
     }
 
+    // Live notifications for the student dashboard (Server-Sent Events). Browsers resend the
+    // Last-Event-ID header on reconnect so missed events can be replayed; a client that opens a new
+    // stream passes it as lastEventId instead. Only for a verified principal, who can only follow
+    // their own stream: EventSource cannot set headers, so FirebaseAuthFilter also takes the ID
+    // token from the access_token parameter here.
+    @GetMapping(value = "/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> notificationStream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                         @RequestParam(value = "lastEventId", required = false) String resumeFrom,
+                                                         @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal) {
+        if (principal == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        Optional<IdentityService.Identity> student = identityService.student(principal.getEmail());
+        if (student.isEmpty()) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        return ResponseEntity.ok(notificationStream.subscribe(NotificationStreamService.studentKey(student.get().id),
+                lastEventId != null ? lastEventId : resumeFrom));
+    }
+
     public static class SubmitQuery {
         public String teacherId;
         public String message;
@@ -226,77 +307,33 @@ public class StudentController {
     }
 
     @GetMapping("/results")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<ResultDto>> getResults(@RequestParam(required = false) String semester, 
                                                       @RequestParam(required = false) String subjectId,
                                                       @RequestParam(required = false) String studentEmail,
                                                       @RequestParam(required = false) Long studentId,
-                                                      @RequestParam(required = false) String teacherEmail) {
+                                                      @RequestParam(required = false) String teacherEmail,
+                                                      @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal) {
         try {
-            // Prefer explicit student identity if provided (email or id). Fallback to first student only for demo.
             log.info("getResults called with subjectId={}, studentEmail={}, studentId={}, teacherEmail={}", subjectId, studentEmail, studentId, teacherEmail);
-            Student student = null;
-            if (studentId != null) {
-                Optional<Student> sOpt = studentRepository.findById(studentId);
-                if (sOpt.isPresent()) student = sOpt.get();
-            }
-            if (student == null && studentEmail != null && !studentEmail.isBlank()) {
-                student = studentRepository.findByEmailIgnoreCase(studentEmail.trim()).orElse(null);
-            }
-            if (student == null) {
-                List<Student> students = studentRepository.findAll();
-                if (students.isEmpty()) return ResponseEntity.ok(List.of());
-                student = students.get(0);
-            }
-
-            List<com.example.backend.model.Result> all = resultRepository.findByStudent(student);
-            
-            // Filter by teacher if provided
-            if (teacherEmail != null && !teacherEmail.isBlank()) {
-                String tnorm = teacherEmail.trim().toLowerCase();
-                final Student finalStudent = student; // Make student effectively final
-                all = all.stream().filter(r -> {
-                    // Check if student is enrolled with this teacher for this subject
-                    if (r.getSubjectId() != null) {
-                        Optional<Enrollment> enrollment = enrollmentRepository.findByStudentAndSubjectId(finalStudent, r.getSubjectId());
-                        if (enrollment.isPresent() && enrollment.get().getTeacher() != null) {
-                            String teacherEmailFromEnrollment = enrollment.get().getTeacher().getEmail();
-                            return teacherEmailFromEnrollment != null && tnorm.equals(teacherEmailFromEnrollment.trim().toLowerCase());
-                        }
-                    }
-                    return false;
-                }).toList();
-            }
-            
-            if (subjectId != null && !subjectId.isBlank()) {
-                all = all.stream().filter(r -> subjectId.equals(r.getSubjectId())).toList();
-            }
-            
-            if (semester != null && !semester.isBlank()) {
-                all = all.stream().filter(r -> semester.equals(r.getSemester())).toList();
-            }
-
-            // aggregate by subjectId
-            var grouped = all.stream().collect(java.util.stream.Collectors.groupingBy(com.example.backend.model.Result::getSubjectId));
-            List<ResultDto> response = grouped.entrySet().stream().map(e -> {
-                String subj = e.getKey() == null ? "unknown" : e.getKey();
-                // Get the latest result for this subject (by semester or latest created)
-                com.example.backend.model.Result latestResult = e.getValue().stream()
-                    .max((r1, r2) -> {
-                        // First compare by semester if both have semester
-                        if (r1.getSemester() != null && r2.getSemester() != null) {
-                            return r1.getSemester().compareTo(r2.getSemester());
-                        }
-                        // Otherwise compare by ID (creation order)
-                        return Long.compare(r1.getId(), r2.getId());
-                    }).orElse(e.getValue().get(0));
-                
-                ResultDto d = new ResultDto();
-                d.subject = subj;
-                d.semester = latestResult.getSemester();
-                d.marks = latestResult.getMarks();
-                d.maxMarks = latestResult.getMaxMarks();
-                return d;
-            }).toList();
+            Optional<IdentityService.Identity> current = currentStudent(principal, studentId, studentEmail);
+            if (current.isEmpty()) return ResponseEntity.ok(List.of());
+            IdentityService.Identity student = current.get();
+
+            String teacherNorm = Emails.normalize(teacherEmail);
+            String subject = subjectId == null || subjectId.isBlank() ? null : subjectId;
+            String sem = semester == null || semester.isBlank() ? null : semester;
+
+            // latest result per subject, filtered and selected in the database
+            List<ResultDto> response = resultRepository.findLatestPerSubject(student.id, subject, sem, teacherNorm)
+                    .stream().map(r -> {
+                        ResultDto d = new ResultDto();
+                        d.subject = r.getSubjectId() == null ? "unknown" : r.getSubjectId();
+                        d.semester = r.getSemester();
+                        d.marks = r.getMarks();
+                        d.maxMarks = r.getMaxMarks();
+                        return d;
+                    }).toList();
             return ResponseEntity.ok(response);
         } catch (Exception ex) {
             log.error("error in getResults for studentEmail={} subjectId={} teacherEmail={}", studentEmail, subjectId, teacherEmail, ex);
@@ -305,21 +342,16 @@ public class StudentController {
     }
 
     @GetMapping("/notifications")
-    public ResponseEntity<List<NotificationDto>> notifications(@RequestParam(required = false) String studentEmail) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<NotificationDto>> notifications(@RequestParam(required = false) String studentEmail,
+                                                               @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal) {
         try {
-            // Find the current student - prefer explicit email if provided, otherwise use first student for demo
-            Student student = null;
-            if (studentEmail != null && !studentEmail.isBlank()) {
-                student = studentRepository.findByEmailIgnoreCase(studentEmail.trim()).orElse(null);
-            }
-            if (student == null) {
-                List<Student> students = studentRepository.findAll();
-                if (students.isEmpty()) return ResponseEntity.ok(List.of());
-                student = students.get(0);
-            }
+            Optional<IdentityService.Identity> current = currentStudent(principal, null, studentEmail);
+            if (current.isEmpty()) return ResponseEntity.ok(List.of());
+            IdentityService.Identity student = current.get();
 
             // Get queries for this specific student
-            List<StudentQuery> studentQueries = queryRepository.findByStudent(student);
+            List<StudentQuery> studentQueries = queryRepository.findByStudent(identityService.studentRef(student));
             
             List<NotificationDto> list = studentQueries.stream().map(q -> {
                 NotificationDto n = new NotificationDto();
@@ -340,23 +372,17 @@ public class StudentController {
     }
 
     @DeleteMapping("/notifications/{id}")
-    public ResponseEntity<?> clearNotification(@PathVariable Long id, @RequestParam(required = false) String studentEmail) {
+    public ResponseEntity<?> clearNotification(@PathVariable Long id, @RequestParam(required = false) String studentEmail,
+                                               @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal) {
         try {
-            // Find the current student
-            Student student = null;
-            if (studentEmail != null && !studentEmail.isBlank()) {
-                student = studentRepository.findByEmailIgnoreCase(studentEmail.trim()).orElse(null);
-            }
-            if (student == null) {
-                List<Student> students = studentRepository.findAll();
-                if (students.isEmpty()) return ResponseEntity.notFound().build();
-                student = students.get(0);
-            }
+            Optional<IdentityService.Identity> current = currentStudent(principal, null, studentEmail);
+            if (current.isEmpty()) return ResponseEntity.notFound().build();
+            IdentityService.Identity student = current.get();
 
             // Find the query and verify it belongs to this student
             Optional<StudentQuery> queryOpt = queryRepository.findById(id);
             if (queryOpt.isPresent() && queryOpt.get().getStudent() != null && 
-                queryOpt.get().getStudent().getId().equals(student.getId())) {
+                queryOpt.get().getStudent().getId().equals(student.id)) {
                 queryRepository.deleteById(id);
                 return ResponseEntity.ok().build();
             }
@@ -374,17 +400,19 @@ public class StudentController {
         String studentEmail = body.studentEmail == null ? null : body.studentEmail.trim().toLowerCase();
         String teacherEmail = body.teacherEmail == null ? null : body.teacherEmail.trim().toLowerCase();
 
-        Student student = studentRepository.findByEmail(studentEmail).orElseGet(() -> {
+        Student student = studentRepository.lookupByEmail(studentEmail).orElseGet(() -> {
             Student s = new Student(); s.setEmail(studentEmail); s.setName(body.studentName == null ? (studentEmail != null ? studentEmail.split("@")[0] : null) : body.studentName); return studentRepository.save(s);
         });
 
-        Teacher teacher = teacherRepository.findByEmail(teacherEmail).orElseGet(() -> {
+        Teacher teacher = teacherRepository.lookupByEmail(teacherEmail).orElseGet(() -> {
             Teacher t = new Teacher(); t.setEmail(teacherEmail); t.setName(body.teacherName == null ? (teacherEmail != null ? teacherEmail.split("@")[0] : null) : body.teacherName); return teacherRepository.save(t);
         });
 
         student.setTeacher(teacher);
         if (body.subjectId != null) student.setSubject(body.subjectId);
         studentRepository.save(student);
+        identityService.evictStudent(studentEmail);
+        identityService.evictTeacher(teacherEmail);
 
         // create enrollment for student-teacher-subject (avoid duplicates)
         if (body.subjectId != null) {
@@ -409,6 +437,13 @@ public class StudentController {
         public String subjectId;
     }
 
+    public static class QueryDto {
+        public String id;
+        public String studentEmail;
+        public String message;
+        public String date;
+    }
+
     public static class NotificationDto { 
         public String id; 
         public String message; 
@@ -435,6 +470,8 @@ public class StudentController {
         public String description;
         public String subjectId;
         public String filePath;
+        public String fileName;
+        public String downloadUrl;
         public String createdAt;
         public boolean submitted;
         public String submissionNotes;
@@ -1,18 +1,41 @@
 package com.example.backend.controller;
 
+import com.example.backend.auth.VerifiedToken;
 import com.example.backend.model.*;
 import com.example.backend.repository.*;
+import com.example.backend.service.AssignmentService;
+import com.example.backend.service.AttendanceService;
 import com.example.backend.service.FileStorageService;
+import com.example.backend.service.IdentityService;
+import com.example.backend.service.NotificationStreamService;
+import com.example.backend.service.ResultService;
+import com.example.backend.service.SubmissionExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -21,22 +44,16 @@ import java.util.stream.Collectors;
 public class TeacherController {
     private static final Logger log = LoggerFactory.getLogger(TeacherController.class);
 
-    // Resolve a teacher by email with tolerant normalization.
-    // First try case-insensitive exact match. If not found, scan all teachers
-    // and compare normalized emails (trim + remove whitespace) to tolerate
-    // accidental spaces stored in the DB (common source of lookup misses).
-    private Optional<Teacher> resolveTeacherByEmail(String email) {
-        if (email == null) return Optional.empty();
-        String norm = email.trim();
-        Optional<Teacher> t = teacherRepository.findByEmailIgnoreCase(norm);
-        if (t.isPresent()) return t;
-        String normNoSpace = norm.replaceAll("\\s+", "").toLowerCase();
-        for (Teacher other : teacherRepository.findAll()) {
-            if (other.getEmail() == null) continue;
-            String otherNorm = other.getEmail().trim().replaceAll("\\s+", "").toLowerCase();
-            if (otherNorm.equals(normNoSpace)) return Optional.of(other);
-        }
-        return Optional.empty();
+    private static final int QUERY_PAGE_DEFAULT = 50;
+    private static final int QUERY_PAGE_MAX = 200;
+    private static final int SUBMISSION_PAGE_DEFAULT = 100;
+    private static final int SUBMISSION_PAGE_MAX = 500;
+    private static final long EXPORT_TIMEOUT_MS = Duration.ofMinutes(30).toMillis();
+
+    // Resolve a teacher by email with tolerant normalization (trim + remove whitespace +
+    // lower-case), served from the shared identity cache.
+    private Optional<IdentityService.Identity> resolveTeacherByEmail(String email) {
+        return identityService.teacher(email);
     }
     private final AssignmentRepository assignmentRepository;
     private final StudentRepository studentRepository;
@@ -47,6 +64,13 @@ public class TeacherController {
     private final TeacherRepository teacherRepository;
     private final EnrollmentRepository enrollmentRepository;
     private final AssignmentSubmissionRepository assignmentSubmissionRepository;
+    private final AttendanceService attendanceService;
+    private final ResultService resultService;
+    private final AssignmentService assignmentService;
+    private final NotificationStreamService notificationStream;
+    private final SubmissionExportService submissionExportService;
+    private final IdentityService identityService;
+    private final AttendanceSummaryRepository attendanceSummaryRepository;
 
     public TeacherController(AssignmentRepository assignmentRepository,
                              StudentRepository studentRepository,
@@ -56,7 +80,14 @@ public class TeacherController {
                              FileStorageService fileStorageService,
                              TeacherRepository teacherRepository,
                              EnrollmentRepository enrollmentRepository,
-                             AssignmentSubmissionRepository assignmentSubmissionRepository) {
+                             AssignmentSubmissionRepository assignmentSubmissionRepository,
+                             AttendanceService attendanceService,
+                             ResultService resultService,
+                             AssignmentService assignmentService,
+                             NotificationStreamService notificationStream,
+                             SubmissionExportService submissionExportService,
+                             IdentityService identityService,
+                             AttendanceSummaryRepository attendanceSummaryRepository) {
         this.assignmentRepository = assignmentRepository;
         this.studentRepository = studentRepository;
         this.attendanceRepository = attendanceRepository;
@@ -66,15 +97,28 @@ public class TeacherController {
         this.teacherRepository = teacherRepository;
         this.enrollmentRepository = enrollmentRepository;
         this.assignmentSubmissionRepository = assignmentSubmissionRepository;
+        this.attendanceService = attendanceService;
+        this.resultService = resultService;
+        this.assignmentService = assignmentService;
+        this.notificationStream = notificationStream;
+        this.submissionExportService = submissionExportService;
+        this.identityService = identityService;
+        this.attendanceSummaryRepository = attendanceSummaryRepository;
     }
 
     @GetMapping("/notifications")
-    public ResponseEntity<List<NotificationDto>> notifications(@RequestParam(required = false) String teacherEmail) {
-        System.out.println("Teacher notifications requested for email: " + teacherEmail);
-        List<StudentQuery> allQueries = queryRepository.findAll();
-        System.out.println("Found " + allQueries.size() + " total queries");
-        
-        List<NotificationDto> list = allQueries.stream().map(q -> {
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<NotificationDto>> notifications(@RequestParam(required = false) String teacherEmail,
+                                                               @RequestParam(required = false) Long cursor,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                                               @RequestParam(required = false) Integer limit) {
+        log.debug("notifications requested for teacherEmail='{}' cursor={} since={}", teacherEmail, cursor, since);
+        Optional<IdentityService.Identity> t = resolveTeacherByEmail(teacherEmail);
+        if (t.isEmpty()) return ResponseEntity.ok(List.of());
+
+        int pageSize = KeysetCursor.clampLimit(limit, QUERY_PAGE_DEFAULT, QUERY_PAGE_MAX);
+        List<StudentQuery> page = queryRepository.findByTeacherIdAndIdLessThanSince(t.get().id, cursor, since, PageRequest.of(0, pageSize));
+        List<NotificationDto> list = page.stream().map(q -> {
             NotificationDto n = new NotificationDto();
             n.id = String.valueOf(q.getId());
             // Show student's email (helps teacher identify sender). If student missing, show "No Student" placeholder.
@@ -84,35 +128,41 @@ public class TeacherController {
             // Include reply if available
             if (q.getReply() != null && !q.getReply().isBlank()) {
                 n.reply = q.getReply();
-                System.out.println("Query " + q.getId() + " has reply: " + q.getReply());
-            } else {
-                System.out.println("Query " + q.getId() + " has no reply");
             }
             return n;
         }).toList();
-        
-        System.out.println("Returning " + list.size() + " notifications");
-        return ResponseEntity.ok(list);
+        return withNextCursor(page, pageSize).body(list);
+    }
+
+    // Live notifications for the teacher dashboard (Server-Sent Events), resumable via Last-Event-ID
+    // (or lastEventId on a new stream). Verified principals only, for their own stream; see
+    // StudentController.notificationStream.
+    @GetMapping(value = "/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> notificationStream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                         @RequestParam(value = "lastEventId", required = false) String resumeFrom,
+                                                         @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal) {
+        if (principal == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        Optional<IdentityService.Identity> t = resolveTeacherByEmail(principal.getEmail());
+        if (t.isEmpty()) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        return ResponseEntity.ok(notificationStream.subscribe(NotificationStreamService.teacherKey(t.get().id),
+                lastEventId != null ? lastEventId : resumeFrom));
     }
 
     @DeleteMapping("/notifications/{id}")
     public ResponseEntity<?> clearNotification(@PathVariable Long id, @RequestParam(required = false) String teacherEmail) {
         try {
-            System.out.println("Attempting to delete notification with id: " + id);
             // Find the query and delete it (teachers can delete any query)
             Optional<StudentQuery> queryOpt = queryRepository.findById(id);
             if (queryOpt.isPresent()) {
-                System.out.println("Found query to delete: " + queryOpt.get().getMessage());
                 queryRepository.deleteById(id);
-                System.out.println("Successfully deleted query with id: " + id);
+                log.debug("clearNotification: deleted query id={}", id);
                 return ResponseEntity.ok().build();
             } else {
-                System.out.println("Query with id " + id + " not found");
+                log.debug("clearNotification: query id={} not found", id);
                 return ResponseEntity.notFound().build();
             }
         } catch (Exception ex) {
-            System.out.println("Error deleting query: " + ex.getMessage());
-            ex.printStackTrace();
+            log.error("error deleting query id={}", id, ex);
             return ResponseEntity.status(500).build();
         }
     }
@@ -130,11 +180,13 @@ public class TeacherController {
                                               @RequestParam("description") String description,
                                               @RequestParam("subjectId") String subjectId,
                                               @RequestParam("teacherEmail") String teacherEmail,
-                                              @RequestParam(value = "file", required = false) MultipartFile file) throws Exception {
+                                              @RequestParam(value = "file", required = false) MultipartFile file,
+                                              @RequestParam(required = false) String fileHash,
+                                              @RequestParam(required = false) String fileName) throws Exception {
         // Find the teacher
         log.info("uploadAssignment called with teacherEmail='{}' subjectId='{}' title='{}'", teacherEmail, subjectId, title);
     String teacherEmailNorm = teacherEmail == null ? null : teacherEmail.trim();
-    Optional<Teacher> teacherOpt = resolveTeacherByEmail(teacherEmailNorm);
+    Optional<IdentityService.Identity> teacherOpt = resolveTeacherByEmail(teacherEmailNorm);
         if (teacherOpt.isEmpty()) {
             log.warn("Teacher not found for email='{}'", teacherEmailNorm);
             return ResponseEntity.badRequest().body("Teacher not found");
@@ -144,26 +196,30 @@ public class TeacherController {
         a.setTitle(title);
         a.setDescription(description);
         a.setSubjectId(subjectId);
-        a.setTeacher(teacherOpt.get());
+        a.setTeacher(identityService.teacherRef(teacherOpt.get()));
         
+        // store file if provided, or reference already-stored content by its hash
+        // (the reference to it is counted in the same transaction that saves the row below)
+        FileStorageService.StoredContent stored = null;
         if (file != null && !file.isEmpty()) {
-            String path = fileStorageService.storeFile(file);
-            a.setFilePath(path);
+            stored = fileStorageService.store(file);
+        } else if (fileHash != null && !fileHash.isBlank()) {
+            stored = fileStorageService.existing(fileHash, fileName).orElse(null);
+            if (stored == null) return ResponseEntity.badRequest().body("unknown fileHash");
         }
-        
-        assignmentRepository.save(a);
-        
-        // Create notifications for all students enrolled in this subject
-        List<Enrollment> enrollments = enrollmentRepository.findByTeacherAndSubjectId(teacherOpt.get(), subjectId);
-        for (Enrollment enrollment : enrollments) {
-            StudentQuery notification = new StudentQuery();
-            notification.setStudent(enrollment.getStudent());
-            notification.setMessage("New assignment posted: " + title);
-            notification.setTeacher(teacherOpt.get());
-            queryRepository.save(notification);
+        if (stored != null) {
+            a.setFilePath(stored.path.toString());
+            a.setFileHash(stored.sha256);
+            a.setFileName(stored.fileName);
         }
         
-        return ResponseEntity.ok().build();
+        // Saves the assignment plus an outbox event; notifications for enrolled students are
+        // created in the background so upload latency does not depend on class size.
+        assignmentService.publish(a, stored);
+        
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (a.getFileHash() != null) ok.header(FileStorageService.CONTENT_HASH_HEADER, a.getFileHash());
+        return ok.build();
     }
 
     @GetMapping("/assignments/{assignmentId}/submissions")
@@ -180,6 +236,8 @@ public class TeacherController {
             dto.studentName = s.getStudent().getName();
             dto.studentEmail = s.getStudent().getEmail();
             dto.filePath = s.getFilePath();
+            dto.fileName = s.getFileName();
+            dto.downloadUrl = FileController.downloadUrl(s.getFileHash(), s.getFileName());
             dto.submissionNotes = s.getSubmissionNotes();
             dto.submittedAt = s.getSubmittedAt().toString();
             return dto;
@@ -188,41 +246,106 @@ public class TeacherController {
         return ResponseEntity.ok(dtoList);
     }
 
+    // All submission files for one assignment plus a CSV manifest, streamed as a ZIP while it is built.
+    // Only the teacher who posted the assignment may export it: the verified principal when there is
+    // one, otherwise teacherEmail. The export gets its own async timeout, since copying a large class's
+    // files can take far longer than the container default that other async requests keep.
+    @GetMapping("/assignments/{assignmentId}/submissions/export")
+    public WebAsyncTask<Void> exportAssignmentSubmissions(@PathVariable Long assignmentId,
+                                                          @RequestParam(required = false) String teacherEmail,
+                                                          @RequestAttribute(value = "firebaseUser", required = false) VerifiedToken principal,
+                                                          HttpServletResponse res) throws IOException {
+        Optional<IdentityService.Identity> teacherOpt = resolveTeacherByEmail(principal != null ? principal.getEmail() : teacherEmail);
+        if (teacherOpt.isEmpty()) {
+            res.sendError(principal != null ? HttpServletResponse.SC_FORBIDDEN : HttpServletResponse.SC_BAD_REQUEST);
+            return null;
+        }
+        Optional<Assignment> assignmentOpt = assignmentRepository.findById(assignmentId);
+        if (assignmentOpt.isEmpty()) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return null;
+        }
+        Teacher owner = assignmentOpt.get().getTeacher();
+        if (owner == null || !Objects.equals(owner.getId(), teacherOpt.get().id)) {
+            log.warn("export of assignment {} refused for teacher id={}", assignmentId, teacherOpt.get().id);
+            res.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return null;
+        }
+        SubmissionExportService.Export export = submissionExportService.prepare(assignmentId);
+        String title = assignmentOpt.get().getTitle();
+        String fileName = (title == null || title.isBlank() ? "assignment-" + assignmentId : title) + "-submissions.zip";
+        res.setContentType("application/zip");
+        res.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        return new WebAsyncTask<>(EXPORT_TIMEOUT_MS, () -> {
+            submissionExportService.write(export, res.getOutputStream());
+            return null;
+        });
+    }
+
     @GetMapping("/assignments/submissions")
-    public ResponseEntity<List<AssignmentSubmissionDto>> getAssignmentSubmissionsByTeacher(@RequestParam String teacherEmail) {
+    public ResponseEntity<List<AssignmentSubmissionDto>> getAssignmentSubmissionsByTeacher(@RequestParam String teacherEmail,
+                                                                                           @RequestParam(required = false) String subjectId,
+                                                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime submittedAfter,
+                                                                                           @RequestParam(required = false) String cursor,
+                                                                                           @RequestParam(required = false) Integer limit) {
         log.info("getAssignmentSubmissionsByTeacher called for teacherEmail='{}'", teacherEmail);
     String teacherEmailNorm = teacherEmail == null ? null : teacherEmail.trim();
-    Optional<Teacher> teacherOpt = resolveTeacherByEmail(teacherEmailNorm);
+    Optional<IdentityService.Identity> teacherOpt = resolveTeacherByEmail(teacherEmailNorm);
         if (teacherOpt.isEmpty()) {
             log.warn("Teacher not found for email='{}'", teacherEmailNorm);
             return ResponseEntity.badRequest().build();
         }
-        
-        List<Assignment> assignments = assignmentRepository.findByTeacher(teacherOpt.get());
-        List<AssignmentSubmissionDto> allSubmissions = new ArrayList<>();
-        
-        for (Assignment assignment : assignments) {
-            List<AssignmentSubmission> submissions = assignmentSubmissionRepository.findByAssignment(assignment);
-            for (AssignmentSubmission submission : submissions) {
-                AssignmentSubmissionDto dto = new AssignmentSubmissionDto();
-                dto.id = submission.getId();
-                dto.studentName = submission.getStudent().getName();
-                dto.studentEmail = submission.getStudent().getEmail();
-                dto.assignmentTitle = submission.getAssignment().getTitle();
-                dto.subjectId = submission.getAssignment().getSubjectId();
-                dto.submissionNotes = submission.getSubmissionNotes();
-                dto.submittedAt = submission.getSubmittedAt().toString();
-                dto.filePath = submission.getFilePath();
-                allSubmissions.add(dto);
-            }
+
+        KeysetCursor after;
+        try {
+            after = KeysetCursor.parse(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        
-        return ResponseEntity.ok(allSubmissions);
+        int pageSize = KeysetCursor.clampLimit(limit, SUBMISSION_PAGE_DEFAULT, SUBMISSION_PAGE_MAX);
+        String subject = subjectId == null || subjectId.isBlank() ? null : subjectId;
+
+        List<AssignmentSubmissionRepository.TeacherSubmissionRow> rows = assignmentSubmissionRepository.findForTeacher(
+                teacherOpt.get().id, subject, submittedAfter,
+                after == null ? null : after.getCreatedAt(),
+                after == null ? null : after.getId(),
+                PageRequest.of(0, pageSize));
+
+        List<AssignmentSubmissionDto> allSubmissions = rows.stream().map(r -> {
+            AssignmentSubmissionDto dto = new AssignmentSubmissionDto();
+            dto.id = r.getId();
+            dto.studentName = r.getStudentName();
+            dto.studentEmail = r.getStudentEmail();
+            dto.assignmentTitle = r.getAssignmentTitle();
+            dto.subjectId = r.getSubjectId();
+            dto.submissionNotes = r.getSubmissionNotes();
+            dto.submittedAt = r.getSubmittedAt().toString();
+            dto.filePath = r.getFilePath();
+            dto.fileName = r.getFileName();
+            dto.downloadUrl = FileController.downloadUrl(r.getFileHash(), r.getFileName());
+            return dto;
+        }).toList();
+
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (rows.size() == pageSize) {
+            AssignmentSubmissionRepository.TeacherSubmissionRow last = rows.get(rows.size() - 1);
+            ok.header(KeysetCursor.NEXT_CURSOR_HEADER, KeysetCursor.encode(last.getSubmittedAt(), last.getId()));
+        }
+        return ok.body(allSubmissions);
     }
 
     @GetMapping("/queries")
-    public ResponseEntity<List<QueryDto>> listQueries() {
-        List<QueryDto> list = queryRepository.findAll().stream().map(q -> {
+    public ResponseEntity<List<QueryDto>> listQueries(@RequestParam(required = false) String teacherEmail,
+                                                      @RequestParam(required = false) Long cursor,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                                      @RequestParam(required = false) Integer limit) {
+        Optional<IdentityService.Identity> t = resolveTeacherByEmail(teacherEmail);
+        if (t.isEmpty()) return ResponseEntity.ok(List.of());
+
+        int pageSize = KeysetCursor.clampLimit(limit, QUERY_PAGE_DEFAULT, QUERY_PAGE_MAX);
+        List<StudentQuery> page = queryRepository.findByTeacherIdAndIdLessThanSince(t.get().id, cursor, since, PageRequest.of(0, pageSize));
+        List<QueryDto> list = page.stream().map(q -> {
             QueryDto d = new QueryDto();
             d.id = String.valueOf(q.getId());
             d.studentEmail = q.getStudent() != null ? q.getStudent().getEmail() : "unknown@";
@@ -231,7 +354,16 @@ public class TeacherController {
             d.date = q.getCreatedAt().toLocalDate().toString();
             return d;
         }).toList();
-        return ResponseEntity.ok(list);
+        return withNextCursor(page, pageSize).body(list);
+    }
+
+    // A full page means there may be more; hand back the last id as the next cursor.
+    private static ResponseEntity.BodyBuilder withNextCursor(List<StudentQuery> page, int pageSize) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            ok.header(KeysetCursor.NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return ok;
     }
 
     @PostMapping("/queries/{id}/reply")
@@ -241,6 +373,14 @@ public class TeacherController {
             StudentQuery sq = q.get();
             sq.setReply(body.get("reply"));
             queryRepository.save(sq);
+            if (sq.getStudent() != null) {
+                ReplyEvent event = new ReplyEvent();
+                event.id = String.valueOf(sq.getId());
+                event.message = sq.getMessage();
+                event.reply = sq.getReply();
+                event.date = sq.getCreatedAt().toLocalDate().toString();
+                notificationStream.publish(NotificationStreamService.studentKey(sq.getStudent().getId()), "reply", event);
+            }
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
@@ -253,12 +393,12 @@ public class TeacherController {
                                                             @RequestParam(required = false) String semester) {
         log.info("studentsInClass called with teacherEmail='{}' subjectId='{}'", teacherEmail, subjectId);
     String teacherEmailNorm = teacherEmail == null ? null : teacherEmail.trim();
-    Optional<Teacher> t = resolveTeacherByEmail(teacherEmailNorm);
+    Optional<IdentityService.Identity> t = resolveTeacherByEmail(teacherEmailNorm);
         if (t.isEmpty()) {
             log.warn("studentsInClass: teacher not found for email='{}'", teacherEmailNorm);
             return ResponseEntity.ok(List.of());
         }
-        List<Enrollment> enrollments = enrollmentRepository.findByTeacherAndSubjectId(t.get(), subjectId);
+        List<Enrollment> enrollments = enrollmentRepository.findByTeacherAndSubjectId(identityService.teacherRef(t.get()), subjectId);
         log.info("studentsInClass: found {} enrollments for teacherEmail='{}' subjectId='{}'", enrollments.size(), teacherEmailNorm, subjectId);
         List<StudentDto> list = enrollments.stream().map(e -> {
             Student s = e.getStudent(); StudentDto d = new StudentDto(); d.id = s.getId(); d.name = s.getName(); return d;
@@ -270,90 +410,131 @@ public class TeacherController {
     public ResponseEntity<?> submitAttendance(@PathVariable String teacherEmail, @RequestParam String subjectId, @RequestBody AttendanceSubmit body) {
         log.info("submitAttendance called by teacherEmail='{}' subjectId='{}' date='{}' entries={} ", teacherEmail, subjectId, body.date, body.attendance == null ? 0 : body.attendance.size());
     String teacherEmailNorm = teacherEmail == null ? null : teacherEmail.trim();
-    Optional<Teacher> t = resolveTeacherByEmail(teacherEmailNorm);
+    Optional<IdentityService.Identity> t = resolveTeacherByEmail(teacherEmailNorm);
         if (t.isEmpty()) {
             log.warn("submitAttendance: teacher not found for email='{}'", teacherEmailNorm);
             return ResponseEntity.badRequest().build();
         }
-        Teacher teacher = t.get();
+        Teacher teacher = identityService.teacherRef(t.get());
         if (body.date == null || body.date.isBlank()) return ResponseEntity.badRequest().body("date is required");
-        for (AttendanceSubmit.Att a : body.attendance) {
-            Optional<Student> sOpt = studentRepository.findById(a.id);
-            if (sOpt.isPresent()) {
-                Attendance att = new Attendance();
-                att.setStudent(sOpt.get());
-                att.setDate(LocalDate.parse(body.date));
-                att.setPresent(a.present);
-                att.setTeacher(teacher);
-                att.setSubjectId(subjectId);
-                attendanceRepository.save(att);
+        LocalDate date;
+        try { date = LocalDate.parse(body.date); } catch (Exception e) { return ResponseEntity.badRequest().body("invalid date"); }
+
+        Map<Long, Boolean> presentByStudentId = new LinkedHashMap<>();
+        if (body.attendance != null) {
+            for (AttendanceSubmit.Att a : body.attendance) {
+                if (a.id == null) continue;
+                if (presentByStudentId.put(a.id, a.present) != null) {
+                    return ResponseEntity.badRequest().body("duplicate entry for student " + a.id);
+                }
             }
         }
-        return ResponseEntity.ok().build();
+
+        AttendanceService.RollCallResult result;
+        try {
+            result = attendanceService.recordRollCall(teacher, subjectId, date, presentByStudentId);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent submission for the same subject and date won the race
+            log.warn("submitAttendance: conflicting concurrent submission teacherEmail='{}' subjectId='{}' date='{}'", teacherEmailNorm, subjectId, date);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("attendance already recorded for this date");
+        }
+        if (!result.duplicateStudentIds.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // Attendance totals for every student in the class, read from attendance_summary.
+    @GetMapping("/classes/{teacherEmail:.+}/attendance/summary")
+    public ResponseEntity<List<ClassAttendanceDto>> classAttendanceSummary(@PathVariable String teacherEmail,
+                                                                          @RequestParam String subjectId) {
+        Optional<IdentityService.Identity> t = resolveTeacherByEmail(teacherEmail);
+        if (t.isEmpty()) return ResponseEntity.ok(List.of());
+        List<ClassAttendanceDto> list = attendanceSummaryRepository.findForClass(t.get().id, subjectId).stream().map(r -> {
+            ClassAttendanceDto d = new ClassAttendanceDto();
+            d.studentId = r.getStudentId();
+            d.studentName = r.getStudentName();
+            d.present = r.getPresent();
+            d.total = r.getTotal();
+            return d;
+        }).toList();
+        return ResponseEntity.ok(list);
     }
 
     @GetMapping("/classes/{teacherEmail:.+}/results")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<ResultDto>> getResultsForClass(@PathVariable String teacherEmail,
                                                               @RequestParam String subjectId) {
         log.info("getResultsForClass called with teacherEmail='{}' subjectId='{}'", teacherEmail, subjectId);
     String teacherEmailNorm = teacherEmail == null ? null : teacherEmail.trim();
-    Optional<Teacher> t = resolveTeacherByEmail(teacherEmailNorm);
+    Optional<IdentityService.Identity> t = resolveTeacherByEmail(teacherEmailNorm);
         if (t.isEmpty()) {
             log.warn("getResultsForClass: teacher not found for email='{}'", teacherEmailNorm);
             return ResponseEntity.ok(List.of());
         }
 
-        List<Enrollment> enrollments = enrollmentRepository.findByTeacherAndSubjectId(t.get(), subjectId);
-        log.info("getResultsForClass: found {} enrollments for teacherEmail='{}' subjectId='{}'", enrollments.size(), teacherEmailNorm, subjectId);
-        List<ResultDto> results = new ArrayList<>();
-        
-        for (Enrollment enrollment : enrollments) {
-            List<Result> studentResults = resultRepository.findByStudentAndSubjectId(enrollment.getStudent(), subjectId);
-            for (Result result : studentResults) {
-                ResultDto dto = new ResultDto();
-                dto.studentId = result.getStudent().getId();
-                dto.studentName = result.getStudent().getName();
-                dto.subject = result.getSubjectId();
-                dto.semester = result.getSemester();
-                dto.marks = result.getMarks();
-                dto.maxMarks = result.getMaxMarks();
-                results.add(dto);
-            }
-        }
-        
+        // results of every enrolled student in one query
+        List<ResultDto> results = resultRepository.findForClass(t.get().id, subjectId).stream().map(r -> {
+            ResultDto dto = new ResultDto();
+            dto.studentId = r.getStudentId();
+            dto.studentName = r.getStudentName();
+            dto.subject = r.getSubjectId();
+            dto.semester = r.getSemester();
+            dto.marks = r.getMarks();
+            dto.maxMarks = r.getMaxMarks();
+            return dto;
+        }).toList();
+        log.info("getResultsForClass: {} results for teacherEmail='{}' subjectId='{}'", results.size(), teacherEmailNorm, subjectId);
         return ResponseEntity.ok(results);
     }
 
+    // Per-semester score distribution for a class: mean, median, percentiles, pass rate and a
+    // histogram, over percentage scores. passMark is a percentage.
+    @GetMapping("/classes/{teacherEmail:.+}/results/analytics")
+    public ResponseEntity<ResultService.Gradebook> getGradebookAnalytics(@PathVariable String teacherEmail,
+                                                                         @RequestParam String subjectId,
+                                                                         @RequestParam(defaultValue = "40") double passMark,
+                                                                         @RequestParam(defaultValue = "10") int bins) {
+        Optional<IdentityService.Identity> t = resolveTeacherByEmail(teacherEmail);
+        if (t.isEmpty()) return ResponseEntity.badRequest().build();
+        if (passMark < 0 || passMark > 100 || bins < 1 || bins > 100) return ResponseEntity.badRequest().build();
+        return ResponseEntity.ok(resultService.gradebook(t.get().id, subjectId, passMark, bins));
+    }
+
     @PostMapping("/classes/{teacherEmail:.+}/results")
     public ResponseEntity<?> submitResults(@PathVariable String teacherEmail, 
                                            @RequestParam String subjectId, 
                                            @RequestBody ResultSubmit body) {
     String teacherEmailNorm = teacherEmail == null ? null : teacherEmail.trim();
-    Optional<Teacher> t = resolveTeacherByEmail(teacherEmailNorm);
+    Optional<IdentityService.Identity> t = resolveTeacherByEmail(teacherEmailNorm);
         if (t.isEmpty()) return ResponseEntity.badRequest().build();
-        Teacher teacher = t.get();
+        IdentityService.Identity teacher = t.get();
         
         if (body.semester == null || body.semester.isBlank()) {
             return ResponseEntity.badRequest().body("semester is required");
         }
         
-        for (ResultSubmit.ResultData resultData : body.results) {
-            Optional<Student> sOpt = studentRepository.findById(resultData.studentId);
-            if (sOpt.isPresent()) {
-                Result result = new Result();
-                result.setStudent(sOpt.get());
-                result.setSemester(body.semester);
-                result.setMarks(resultData.marks);
-                result.setMaxMarks(resultData.maxMarks != null ? resultData.maxMarks : 100);
-                result.setSubjectId(subjectId);
-                resultRepository.save(result);
+        // last entry wins if a student appears more than once
+        Map<Long, ResultService.Marks> marksByStudentId = new LinkedHashMap<>();
+        if (body.results != null) {
+            for (ResultSubmit.ResultData resultData : body.results) {
+                if (resultData.studentId == null) continue;
+                marksByStudentId.put(resultData.studentId,
+                        new ResultService.Marks(resultData.marks, resultData.maxMarks != null ? resultData.maxMarks : 100));
             }
         }
-        return ResponseEntity.ok().build();
+        ResultService.UpsertResult result = resultService.upsertSemester(subjectId, body.semester, marksByStudentId);
+        log.info("submitResults: teacherId={} subjectId='{}' semester='{}' inserted={} updated={} skipped={}",
+                teacher.id, subjectId, body.semester, result.inserted, result.updated, result.skipped);
+        return ResponseEntity.ok(result);
     }
 
     public static class StudentDto { public Long id; public String name; }
 
+    public static class ClassAttendanceDto { public Long studentId; public String studentName; public Long present; public Long total; }
+
+    public static class ReplyEvent { public String id; public String message; public String reply; public String date; }
+
     public static class QueryDto { public String id; public String studentEmail; public String message; public String reply; public String date; }
 
     public static class AttendanceSubmit {
@@ -388,6 +569,8 @@ public class TeacherController {
         public String assignmentTitle;
         public String subjectId;
         public String filePath;
+        public String fileName;
+        public String downloadUrl;
         public String submissionNotes;
         public String submittedAt;
     }
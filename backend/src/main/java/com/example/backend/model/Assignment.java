@@ -1,11 +1,17 @@
 package com.example.backend.model;
 
+import com.example.backend.service.FileReferenceListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "assignments")
+@EntityListeners(FileReferenceListener.class)
+@Table(name = "assignments", indexes = {
+        @Index(name = "idx_assignments_created_id", columnList = "created_at,id"),
+        @Index(name = "idx_assignments_subject_created_id", columnList = "subject_id,created_at,id"),
+        @Index(name = "idx_assignments_teacher_subject", columnList = "teacher_id,subject_id")
+})
 public class Assignment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,9 +32,18 @@ public class Assignment {
     @Column(name = "file_path")
     private String filePath;
 
+    // SHA-256 of the attached file in the content-addressed store (see FileStorageService)
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    // name the file was uploaded under, for downloads
+    @Column(name = "file_name")
+    private String fileName;
+
     @Column(name = "due_date")
     private LocalDateTime dueDate;
 
+    @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
     public Assignment() {}
@@ -81,6 +96,22 @@ public class Assignment {
         this.filePath = filePath;
     }
 
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
     public LocalDateTime getDueDate() {
         return dueDate;
     }
@@ -1,11 +1,16 @@
 package com.example.backend.model;
 
+import com.example.backend.service.FileReferenceListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "assignment_submissions")
+@EntityListeners(FileReferenceListener.class)
+@Table(name = "assignment_submissions", indexes = {
+        @Index(name = "idx_assignment_submissions_student_assignment", columnList = "student_id,assignment_id"),
+        @Index(name = "idx_assignment_submissions_assignment_submitted", columnList = "assignment_id,submitted_at,id")
+})
 public class AssignmentSubmission {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,9 +25,18 @@ public class AssignmentSubmission {
     @Column(name = "file_path")
     private String filePath;
 
+    // SHA-256 of the attached file in the content-addressed store (see FileStorageService)
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    // name the file was uploaded under, for downloads
+    @Column(name = "file_name")
+    private String fileName;
+
     @Column(name = "submission_notes", length = 1000)
     private String submissionNotes;
 
+    @Column(name = "submitted_at")
     private LocalDateTime submittedAt = LocalDateTime.now();
 
     public AssignmentSubmission() {}
@@ -59,6 +73,22 @@ public class AssignmentSubmission {
         this.filePath = filePath;
     }
 
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
     public String getSubmissionNotes() {
         return submissionNotes;
     }
@@ -4,11 +4,18 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.util.Objects;
 
+// Range-partitioned by month in PostgreSQL (AttendancePartitionJob): the primary key there is
+// (id, date), so filter on date wherever possible to let queries prune partitions.
+// One row per (student, subject, date): 007_attendance_unique_roll_call.sql deduplicates existing
+// rows before creating the unique index, and adds a partial one for rows without a subject.
 @Entity
-@Table(name = "attendance")
+@Table(name = "attendance", uniqueConstraints = @UniqueConstraint(
+        name = "uk_attendance_student_subject_date", columnNames = {"student_id", "subject_id", "date"}))
 public class Attendance {
+    // Sequence ids (allocated in blocks) so inserts can be JDBC-batched; IDENTITY disables batching.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_seq")
+    @SequenceGenerator(name = "attendance_seq", sequenceName = "attendance_seq", allocationSize = 50)
     private Long id;
 
     private LocalDate date;
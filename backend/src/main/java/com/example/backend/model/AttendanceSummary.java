@@ -0,0 +1,74 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Running present/total attendance counts per (student, subject, teacher), maintained by
+ * AttendanceService in the same transaction as the raw attendance rows and reconciled by
+ * AttendanceSummaryRebuildJob. Attendance rows without a subject or teacher are counted under
+ * subject_id '' and teacher_id 0, so the key columns can be NOT NULL.
+ */
+@Entity
+@Table(name = "attendance_summary", indexes = {
+        @Index(name = "idx_attendance_summary_teacher_subject", columnList = "teacher_id,subject_id")
+})
+@IdClass(AttendanceSummary.Key.class)
+public class AttendanceSummary {
+    public static final String NO_SUBJECT = "";
+    public static final long NO_TEACHER = 0L;
+
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Id
+    @Column(name = "subject_id")
+    private String subjectId;
+
+    @Id
+    @Column(name = "teacher_id")
+    private Long teacherId;
+
+    @Column(nullable = false)
+    private long present;
+
+    @Column(nullable = false)
+    private long total;
+
+    public AttendanceSummary() {}
+
+    public Long getStudentId() { return studentId; }
+    public String getSubjectId() { return subjectId; }
+    public Long getTeacherId() { return teacherId; }
+    public long getPresent() { return present; }
+    public long getTotal() { return total; }
+
+    public static class Key implements Serializable {
+        private Long studentId;
+        private String subjectId;
+        private Long teacherId;
+
+        public Key() {}
+
+        public Key(Long studentId, String subjectId, Long teacherId) {
+            this.studentId = studentId;
+            this.subjectId = subjectId;
+            this.teacherId = teacherId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(studentId, key.studentId) && Objects.equals(subjectId, key.subjectId) && Objects.equals(teacherId, key.teacherId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(studentId, subjectId, teacherId);
+        }
+    }
+}
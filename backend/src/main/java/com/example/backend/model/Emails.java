@@ -0,0 +1,22 @@
+package com.example.backend.model;
+
+import java.util.Locale;
+
+/**
+ * Canonical form of an email address used for lookups: all whitespace removed and lower-cased.
+ * Stored alongside the raw address so a lookup is a single indexed equality probe.
+ */
+public final class Emails {
+
+    private Emails() {}
+
+    public static String normalize(String email) {
+        if (email == null) return null;
+        StringBuilder sb = new StringBuilder(email.length());
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (!Character.isWhitespace(c)) sb.append(c);
+        }
+        return sb.length() == 0 ? null : sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Work recorded in the same transaction as the change that caused it and carried out later by
+ * the outbox worker (e.g. fanning out notifications when an assignment is posted).
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    public static final String ASSIGNMENT_POSTED = "ASSIGNMENT_POSTED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String type;
+
+    // id of the row the event is about, e.g. the assignment id
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    private int attempts;
+
+    private boolean failed;
+
+    @Column(name = "last_error", length = 2000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(String type, Long aggregateId) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getAggregateId() { return aggregateId; }
+    public void setAggregateId(Long aggregateId) { this.aggregateId = aggregateId; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public boolean isFailed() { return failed; }
+    public void setFailed(boolean failed) { this.failed = failed; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    @Override
+    public boolean equals(Object o) { if (this == o) return true; if (o == null || getClass() != o.getClass()) return false; OutboxEvent that = (OutboxEvent) o; return Objects.equals(id, that.id); }
+    @Override
+    public int hashCode() { return Objects.hash(id); }
+}
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import java.util.Objects;
 
 @Entity
+// (student_id, subject_id, semester) is unique; the index is created by db/migration once
+// historical duplicates have been collapsed, and backs ResultService's upsert.
 @Table(name = "results")
 public class Result {
     @Id
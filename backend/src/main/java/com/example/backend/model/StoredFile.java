@@ -0,0 +1,60 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A blob in the content-addressed upload store, identified by the SHA-256 of its bytes.
+ * ref_count is the number of assignments/submissions pointing at it; the bytes are removed when
+ * it drops to zero.
+ */
+@Entity
+@Table(name = "stored_files")
+public class StoredFile {
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long size;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    // CRC-32 of the content, recorded at upload so ZIP exports can write STORED entries without
+    // reading the file twice; null for content stored before it was recorded
+    @Column(name = "crc32")
+    private Long crc32;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public StoredFile() {}
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Long getCrc32() { return crc32; }
+    public void setCrc32(Long crc32) { this.crc32 = crc32; }
+
+    public int getRefCount() { return refCount; }
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    @Override
+    public boolean equals(Object o) { if (this == o) return true; if (o == null || getClass() != o.getClass()) return false; StoredFile that = (StoredFile) o; return Objects.equals(sha256, that.sha256); }
+    @Override
+    public int hashCode() { return Objects.hash(sha256); }
+}
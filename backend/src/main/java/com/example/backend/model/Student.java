@@ -5,7 +5,7 @@ import java.util.Objects;
 import com.example.backend.model.Teacher;
 
 @Entity
-@Table(name = "students")
+@Table(name = "students", uniqueConstraints = @UniqueConstraint(name = "uk_students_email_normalized", columnNames = {"email_normalized"}))
 public class Student {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -17,6 +17,10 @@ public class Student {
     @Column(nullable = false, unique = true)
     private String email;
 
+    // Emails.normalize(email), maintained on every insert/update for indexed lookups
+    @Column(name = "email_normalized")
+    private String emailNormalized;
+
     @ManyToOne
     @JoinColumn(name = "teacher_id")
     private Teacher teacher;
@@ -55,6 +59,16 @@ public class Student {
         this.email = email;
     }
 
+    public String getEmailNormalized() {
+        return emailNormalized;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeEmail() {
+        this.emailNormalized = Emails.normalize(email);
+    }
+
     public Teacher getTeacher() {
         return teacher;
     }
@@ -5,8 +5,17 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "student_queries")
+@Table(name = "student_queries", indexes = {
+        @Index(name = "idx_student_queries_teacher_created", columnList = "teacher_id,created_at"),
+        @Index(name = "idx_student_queries_teacher_id", columnList = "teacher_id,id")
+})
 public class StudentQuery {
+
+    // A question a student asked their teacher.
+    public static final String KIND_QUERY = "QUERY";
+    // A notification addressed to a student (e.g. an assignment was posted); not shown to teachers as a query.
+    public static final String KIND_ASSIGNMENT_POSTED = "ASSIGNMENT_POSTED";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -23,6 +32,10 @@ public class StudentQuery {
     @Column(length = 2000)
     private String reply;
 
+    @Column(length = 32)
+    private String kind = KIND_QUERY;
+
+    @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
     public StudentQuery() {}
@@ -67,6 +80,14 @@ public class StudentQuery {
         this.reply = reply;
     }
 
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
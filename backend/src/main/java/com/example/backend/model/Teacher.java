@@ -6,7 +6,7 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "teachers")
+@Table(name = "teachers", uniqueConstraints = @UniqueConstraint(name = "uk_teachers_email_normalized", columnNames = {"email_normalized"}))
 public class Teacher {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -18,6 +18,10 @@ public class Teacher {
     @Column(nullable = false, unique = true)
     private String email;
 
+    // Emails.normalize(email), maintained on every insert/update for indexed lookups
+    @Column(name = "email_normalized")
+    private String emailNormalized;
+
     @OneToMany(mappedBy = "teacher")
     private List<Student> students = new ArrayList<>();
 
@@ -52,6 +56,16 @@ public class Teacher {
         this.email = email;
     }
 
+    public String getEmailNormalized() {
+        return emailNormalized;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeEmail() {
+        this.emailNormalized = Emails.normalize(email);
+    }
+
     public List<Student> getStudents() {
         return students;
     }
@@ -2,12 +2,82 @@ package com.example.backend.repository;
 
 import com.example.backend.model.Assignment;
 import com.example.backend.model.Teacher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     List<Assignment> findByTeacher(Teacher teacher);
     List<Assignment> findBySubjectId(String subjectId);
     List<Assignment> findByTeacherAndSubjectId(Teacher teacher, String subjectId);
-}
\ No newline at end of file
+
+    // Assignment feed for one student with their submission (if any) joined in, so the
+    // submitted flag costs no extra queries. Keyset paginated on (createdAt, id) descending;
+    // pass null cursor values for the first page and the page size through Pageable.
+    @Query("select a.id as id, a.title as title, a.description as description, a.subjectId as subjectId, " +
+            "a.filePath as filePath, a.fileHash as fileHash, a.fileName as fileName, a.createdAt as createdAt, " +
+            "s.id as submissionId, s.submissionNotes as submissionNotes, s.submittedAt as submittedAt " +
+            "from Assignment a " +
+            "left join AssignmentSubmission s on s.assignment = a and s.student.id = :studentId " +
+            "where (:subjectId is null or a.subjectId = :subjectId) " +
+            "and (:cursorCreatedAt is null or a.createdAt < :cursorCreatedAt " +
+            "     or (a.createdAt = :cursorCreatedAt and a.id < :cursorId)) " +
+            "order by a.createdAt desc, a.id desc")
+    List<StudentFeedRow> findFeedForStudent(@Param("studentId") Long studentId,
+                                            @Param("subjectId") String subjectId,
+                                            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                            @Param("cursorId") Long cursorId,
+                                            Pageable page);
+
+    // Ranked full-text search over title and description (see db/migration/006_full_text_search.sql).
+    // Scoped to one teacher's assignments, or to a student's enrolled teacher/subject pairs (the
+    // other id is null). Snippets are computed only for the returned page.
+    @Query(value = "select a.id as id, a.title as title, a.subject_id as subjectId, a.created_at as createdAt, hit.rank as rank, " +
+            "ts_headline('english', " + StudentQueryRepository.ESCAPE_HTML_START + "coalesce(a.title, '')" + StudentQueryRepository.ESCAPE_HTML_END +
+            ", hit.query, 'HighlightAll=true, StartSel=<mark>, StopSel=</mark>') as titleSnippet, " +
+            "ts_headline('english', " + StudentQueryRepository.ESCAPE_HTML_START + "coalesce(a.description, '')" + StudentQueryRepository.ESCAPE_HTML_END +
+            ", hit.query, " + StudentQueryRepository.HEADLINE_OPTIONS + ") as descriptionSnippet " +
+            "from (select x.id, cast(ts_rank_cd(x.search_vector, tq.query) as double precision) as rank, tq.query " +
+            "      from assignments x, websearch_to_tsquery('english', :q) as tq(query) " +
+            "      where x.search_vector @@ tq.query " +
+            "      and (cast(:teacherId as bigint) is null or x.teacher_id = cast(:teacherId as bigint)) " +
+            "      and (cast(:studentId as bigint) is null or exists (select 1 from enrollments e " +
+            "           where e.student_id = cast(:studentId as bigint) and e.teacher_id = x.teacher_id and e.subject_id = x.subject_id)) " +
+            "      order by rank desc, x.id desc limit :limit offset :offset) hit " +
+            "join assignments a on a.id = hit.id " +
+            "order by hit.rank desc, a.id desc",
+            nativeQuery = true)
+    List<SearchRow> search(@Param("q") String q,
+                           @Param("teacherId") Long teacherId,
+                           @Param("studentId") Long studentId,
+                           @Param("limit") int limit,
+                           @Param("offset") int offset);
+
+    interface SearchRow {
+        Long getId();
+        String getTitle();
+        String getSubjectId();
+        LocalDateTime getCreatedAt();
+        Double getRank();
+        String getTitleSnippet();
+        String getDescriptionSnippet();
+    }
+
+    interface StudentFeedRow {
+        Long getId();
+        String getTitle();
+        String getDescription();
+        String getSubjectId();
+        String getFilePath();
+        String getFileHash();
+        String getFileName();
+        LocalDateTime getCreatedAt();
+        Long getSubmissionId();
+        String getSubmissionNotes();
+        LocalDateTime getSubmittedAt();
+    }
+}
@@ -3,8 +3,12 @@ package com.example.backend.repository;
 import com.example.backend.model.AssignmentSubmission;
 import com.example.backend.model.Assignment;
 import com.example.backend.model.Student;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +17,57 @@ public interface AssignmentSubmissionRepository extends JpaRepository<Assignment
     List<AssignmentSubmission> findByAssignment(Assignment assignment);
     Optional<AssignmentSubmission> findByStudentAndAssignment(Student student, Assignment assignment);
     List<AssignmentSubmission> findByAssignmentAndStudent(Assignment assignment, Student student);
+
+    // Every submission to any of the teacher's assignments as flat rows, in one statement.
+    // subjectId and submittedAfter are optional filters; keyset paginated on (submittedAt, id)
+    // descending, pass null cursor values for the first page.
+    @Query("select s.id as id, st.name as studentName, st.email as studentEmail, " +
+            "a.title as assignmentTitle, a.subjectId as subjectId, " +
+            "s.filePath as filePath, s.fileHash as fileHash, s.fileName as fileName, s.submissionNotes as submissionNotes, s.submittedAt as submittedAt " +
+            "from AssignmentSubmission s join s.assignment a join s.student st " +
+            "where a.teacher.id = :teacherId " +
+            "and (:subjectId is null or a.subjectId = :subjectId) " +
+            "and (:submittedAfter is null or s.submittedAt > :submittedAfter) " +
+            "and (:cursorSubmittedAt is null or s.submittedAt < :cursorSubmittedAt " +
+            "     or (s.submittedAt = :cursorSubmittedAt and s.id < :cursorId)) " +
+            "order by s.submittedAt desc, s.id desc")
+    List<TeacherSubmissionRow> findForTeacher(@Param("teacherId") Long teacherId,
+                                              @Param("subjectId") String subjectId,
+                                              @Param("submittedAfter") LocalDateTime submittedAfter,
+                                              @Param("cursorSubmittedAt") LocalDateTime cursorSubmittedAt,
+                                              @Param("cursorId") Long cursorId,
+                                              Pageable page);
+
+    // Everything a ZIP export of one assignment needs, without loading entities.
+    @Query("select s.id as id, st.name as studentName, st.email as studentEmail, " +
+            "s.filePath as filePath, s.fileHash as fileHash, s.fileName as fileName, " +
+            "s.submissionNotes as submissionNotes, s.submittedAt as submittedAt " +
+            "from AssignmentSubmission s join s.student st " +
+            "where s.assignment.id = :assignmentId " +
+            "order by st.name, s.id")
+    List<ExportRow> findForExport(@Param("assignmentId") Long assignmentId);
+
+    interface ExportRow {
+        Long getId();
+        String getStudentName();
+        String getStudentEmail();
+        String getFilePath();
+        String getFileHash();
+        String getFileName();
+        String getSubmissionNotes();
+        LocalDateTime getSubmittedAt();
+    }
+
+    interface TeacherSubmissionRow {
+        Long getId();
+        String getStudentName();
+        String getStudentEmail();
+        String getAssignmentTitle();
+        String getSubjectId();
+        String getFilePath();
+        String getFileHash();
+        String getFileName();
+        String getSubmissionNotes();
+        LocalDateTime getSubmittedAt();
+    }
 }
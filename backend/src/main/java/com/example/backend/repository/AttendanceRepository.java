@@ -3,11 +3,45 @@ package com.example.backend.repository;
 import com.example.backend.model.Attendance;
 import com.example.backend.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     List<Attendance> findByStudentAndDateBetween(Student student, LocalDate start, LocalDate end);
     List<Attendance> findByStudent(Student student);
+
+    // Present/total counts per subject for one student over [fromDate, toDate], aggregated in the database.
+    // teacherEmail and subjectId are optional (pass null to skip them); teacherEmail must already be
+    // normalized (Emails.normalize). Both dates are required: a plain range on the partition key lets
+    // PostgreSQL prune attendance partitions even in a generic (server-prepared) plan.
+    @Query("select a.subjectId as subjectId, count(a) as total, " +
+            "sum(case when a.present = true then 1 else 0 end) as present " +
+            "from Attendance a left join a.teacher t " +
+            "where a.student.id = :studentId " +
+            "and (:teacherEmail is null or t.emailNormalized = :teacherEmail) " +
+            "and (:subjectId is null or a.subjectId = :subjectId) " +
+            "and a.date between :fromDate and :toDate " +
+            "group by a.subjectId")
+    List<SubjectAttendanceCount> countBySubject(@Param("studentId") Long studentId,
+                                                @Param("teacherEmail") String teacherEmail,
+                                                @Param("subjectId") String subjectId,
+                                                @Param("fromDate") LocalDate fromDate,
+                                                @Param("toDate") LocalDate toDate);
+
+    // Students among the given ids that already have a row for this subject and date.
+    @Query("select a.student.id from Attendance a " +
+            "where a.subjectId = :subjectId and a.date = :date and a.student.id in :studentIds")
+    List<Long> findRecordedStudentIds(@Param("subjectId") String subjectId,
+                                      @Param("date") LocalDate date,
+                                      @Param("studentIds") Collection<Long> studentIds);
+
+    interface SubjectAttendanceCount {
+        String getSubjectId();
+        Long getPresent();
+        Long getTotal();
+    }
 }
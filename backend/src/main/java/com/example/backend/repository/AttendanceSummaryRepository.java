@@ -0,0 +1,37 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.AttendanceSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface AttendanceSummaryRepository extends JpaRepository<AttendanceSummary, AttendanceSummary.Key> {
+
+    // One student's counts per subject, summed over teachers; a primary-key range scan.
+    // teacherId and subjectId are optional (pass null to skip).
+    @Query("select s.subjectId as subjectId, sum(s.present) as present, sum(s.total) as total " +
+            "from AttendanceSummary s " +
+            "where s.studentId = :studentId " +
+            "and (:teacherId is null or s.teacherId = :teacherId) " +
+            "and (:subjectId is null or s.subjectId = :subjectId) " +
+            "group by s.subjectId")
+    List<AttendanceRepository.SubjectAttendanceCount> countBySubject(@Param("studentId") Long studentId,
+                                                                     @Param("teacherId") Long teacherId,
+                                                                     @Param("subjectId") String subjectId);
+
+    // Class-level view: every student's counts for one teacher and subject.
+    @Query("select s.studentId as studentId, st.name as studentName, s.present as present, s.total as total " +
+            "from AttendanceSummary s, Student st " +
+            "where st.id = s.studentId and s.teacherId = :teacherId and s.subjectId = :subjectId " +
+            "order by st.name, s.studentId")
+    List<ClassAttendanceRow> findForClass(@Param("teacherId") Long teacherId, @Param("subjectId") String subjectId);
+
+    interface ClassAttendanceRow {
+        Long getStudentId();
+        String getStudentName();
+        Long getPresent();
+        Long getTotal();
+    }
+}
@@ -4,6 +4,8 @@ import com.example.backend.model.Enrollment;
 import com.example.backend.model.Teacher;
 import com.example.backend.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,4 +13,7 @@ import java.util.Optional;
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     List<Enrollment> findByTeacherAndSubjectId(Teacher teacher, String subjectId);
     Optional<Enrollment> findByStudentAndSubjectId(Student student, String subjectId);
+
+    @Query("select e.student.id from Enrollment e where e.teacher.id = :teacherId and e.subjectId = :subjectId")
+    List<Long> findStudentIdsByTeacherAndSubject(@Param("teacherId") Long teacherId, @Param("subjectId") String subjectId);
 }
@@ -0,0 +1,25 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Claims the oldest due event; SKIP LOCKED lets several workers drain the outbox concurrently.
+    @Query(value = "select * from outbox_events " +
+            "where processed_at is null and failed = false and next_attempt_at <= :now " +
+            "order by id limit 1 for update skip locked",
+            nativeQuery = true)
+    Optional<OutboxEvent> lockNextDue(@Param("now") LocalDateTime now);
+
+    @Query("select min(e.createdAt) from OutboxEvent e where e.processedAt is null and e.failed = false")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    @Query("select count(e) from OutboxEvent e where e.processedAt is null and e.failed = false")
+    long countPending();
+}
@@ -3,11 +3,127 @@ package com.example.backend.repository;
 import com.example.backend.model.Result;
 import com.example.backend.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ResultRepository extends JpaRepository<Result, Long> {
     List<Result> findByStudentAndSemester(Student student, String semester);
     List<Result> findByStudent(Student student);
     List<Result> findByStudentAndSubjectId(Student student, String subjectId);
+
+    // Latest result per subject for one student (highest semester, then newest row), picked with
+    // PostgreSQL DISTINCT ON. The teacher filter joins enrollments/teachers in SQL instead of
+    // looking up the enrollment per row. All filters are optional; teacherEmail must be normalized
+    // (Emails.normalize). Nullable parameters are cast so PostgreSQL can type them when null.
+    @Query(value = "select distinct on (r.subject_id) r.subject_id as \"subjectId\", r.semester as \"semester\", " +
+            "r.marks as \"marks\", r.max_marks as \"maxMarks\" " +
+            "from results r " +
+            "where r.student_id = :studentId " +
+            "and (cast(:subjectId as varchar) is null or r.subject_id = cast(:subjectId as varchar)) " +
+            "and (cast(:semester as varchar) is null or r.semester = cast(:semester as varchar)) " +
+            "and (cast(:teacherEmail as varchar) is null or exists (" +
+            "     select 1 from enrollments e join teachers t on t.id = e.teacher_id " +
+            "     where e.student_id = r.student_id and e.subject_id = r.subject_id " +
+            "     and t.email_normalized = cast(:teacherEmail as varchar))) " +
+            "order by r.subject_id, r.semester desc nulls last, r.id desc",
+            nativeQuery = true)
+    List<LatestResultRow> findLatestPerSubject(@Param("studentId") Long studentId,
+                                               @Param("subjectId") String subjectId,
+                                               @Param("semester") String semester,
+                                               @Param("teacherEmail") String teacherEmail);
+
+    // Existing marks for the given students in one subject/semester, without hydrating entities.
+    @Query("select r.student.id as studentId, r.marks as marks, r.maxMarks as maxMarks from Result r " +
+            "where r.subjectId = :subjectId and r.semester = :semester and r.student.id in :studentIds")
+    List<MarksRow> findMarks(@Param("subjectId") String subjectId,
+                             @Param("semester") String semester,
+                             @Param("studentIds") Collection<Long> studentIds);
+
+    // Every result in a subject for the students enrolled with the teacher in it, in one query.
+    @Query("select st.id as studentId, st.name as studentName, r.subjectId as subjectId, r.semester as semester, " +
+            "r.marks as marks, r.maxMarks as maxMarks " +
+            "from Result r join r.student st " +
+            "where r.subjectId = :subjectId " +
+            "and exists (select 1 from Enrollment e where e.student = st and e.teacher.id = :teacherId and e.subjectId = :subjectId) " +
+            "order by st.name, st.id, r.semester")
+    List<ClassResultRow> findForClass(@Param("teacherId") Long teacherId, @Param("subjectId") String subjectId);
+
+    // Gradebook statistics per semester over the percentage score (marks / max_marks) of the
+    // teacher's enrolled students in one subject, computed with ordered-set aggregates in SQL.
+    @Query(value = "with scored as (" + CLASS_SCORES_SQL + ") " +
+            "select semester as \"semester\", count(*) as \"students\", " +
+            "avg(pct) as \"mean\", stddev_pop(pct) as \"stddev\", min(pct) as \"min\", max(pct) as \"max\", " +
+            "percentile_cont(0.25) within group (order by pct) as \"p25\", " +
+            "percentile_cont(0.5) within group (order by pct) as \"median\", " +
+            "percentile_cont(0.75) within group (order by pct) as \"p75\", " +
+            "percentile_cont(0.9) within group (order by pct) as \"p90\", " +
+            "cast(avg(case when pct >= :passMark then 1.0 else 0.0 end) as double precision) as \"passRate\" " +
+            "from scored group by semester order by semester nulls last",
+            nativeQuery = true)
+    List<SemesterStatsRow> semesterStats(@Param("teacherId") Long teacherId,
+                                         @Param("subjectId") String subjectId,
+                                         @Param("passMark") double passMark);
+
+    // Histogram of the same scores: equal-width buckets over 0-100%, numbered 1..bins. Scores
+    // outside the range (e.g. bonus marks) are clamped into the first/last bucket.
+    @Query(value = "with scored as (" + CLASS_SCORES_SQL + ") " +
+            "select semester as \"semester\", " +
+            "least(greatest(width_bucket(pct, 0, 100, :bins), 1), :bins) as \"bucket\", count(*) as \"students\" " +
+            "from scored group by 1, 2 order by 1 nulls last, 2",
+            nativeQuery = true)
+    List<HistogramRow> histogram(@Param("teacherId") Long teacherId,
+                                 @Param("subjectId") String subjectId,
+                                 @Param("bins") int bins);
+
+    String CLASS_SCORES_SQL =
+            "select r.semester, cast(100.0 * r.marks / r.max_marks as double precision) as pct " +
+            "from results r " +
+            "where r.subject_id = :subjectId and r.marks is not null and r.max_marks > 0 " +
+            "and exists (select 1 from enrollments e where e.student_id = r.student_id " +
+            "and e.teacher_id = :teacherId and e.subject_id = :subjectId)";
+
+    interface ClassResultRow {
+        Long getStudentId();
+        String getStudentName();
+        String getSubjectId();
+        String getSemester();
+        Integer getMarks();
+        Integer getMaxMarks();
+    }
+
+    interface SemesterStatsRow {
+        String getSemester();
+        Long getStudents();
+        Double getMean();
+        Double getStddev();
+        Double getMin();
+        Double getMax();
+        Double getP25();
+        Double getMedian();
+        Double getP75();
+        Double getP90();
+        Double getPassRate();
+    }
+
+    interface HistogramRow {
+        String getSemester();
+        Integer getBucket();
+        Long getStudents();
+    }
+
+    interface MarksRow {
+        Long getStudentId();
+        Integer getMarks();
+        Integer getMaxMarks();
+    }
+
+    interface LatestResultRow {
+        String getSubjectId();
+        String getSemester();
+        Integer getMarks();
+        Integer getMaxMarks();
+    }
 }
@@ -0,0 +1,39 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.StoredFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Reference counts change only inside the transaction that saves or deletes the row holding the hash.
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    // Registers one more reference to the blob, creating its row on first upload.
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "insert into stored_files (sha256, size_bytes, content_type, crc32, ref_count, created_at) " +
+            "values (:sha256, :size, cast(:contentType as varchar), :crc32, 1, now()) " +
+            "on conflict (sha256) do update set ref_count = stored_files.ref_count + 1, " +
+            "crc32 = coalesce(stored_files.crc32, excluded.crc32)",
+            nativeQuery = true)
+    void addReference(@Param("sha256") String sha256, @Param("size") long size,
+                      @Param("contentType") String contentType, @Param("crc32") long crc32);
+
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "update stored_files set ref_count = ref_count + 1 where sha256 = :sha256", nativeQuery = true)
+    int addReferenceIfExists(@Param("sha256") String sha256);
+
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "update stored_files set ref_count = ref_count - 1 where sha256 = :sha256 and ref_count > 0", nativeQuery = true)
+    int removeReference(@Param("sha256") String sha256);
+
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "delete from stored_files where sha256 = :sha256 and ref_count = 0", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("sha256") String sha256);
+}
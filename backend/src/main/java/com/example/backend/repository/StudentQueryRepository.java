@@ -2,11 +2,65 @@ package com.example.backend.repository;
 
 import com.example.backend.model.StudentQuery;
 import com.example.backend.model.Student;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface StudentQueryRepository extends JpaRepository<StudentQuery, Long> {
     List<StudentQuery> findByTeacherId(Long teacherId);
     List<StudentQuery> findByStudent(Student student);
+
+    // Queries addressed to one teacher, newest first, with the asking student fetch-joined.
+    // Cursor on id (pass the last id of the previous page as beforeId); since restricts to rows
+    // created after that instant so clients can poll incrementally. Both are optional.
+    @Query("select q from StudentQuery q left join fetch q.student s left join fetch s.teacher left join fetch q.teacher " +
+            "where q.teacher.id = :teacherId and q.kind = '" + StudentQuery.KIND_QUERY + "' " +
+            "and (:beforeId is null or q.id < :beforeId) " +
+            "and (:since is null or q.createdAt > :since) " +
+            "order by q.id desc")
+    List<StudentQuery> findByTeacherIdAndIdLessThanSince(@Param("teacherId") Long teacherId,
+                                                        @Param("beforeId") Long beforeId,
+                                                        @Param("since") LocalDateTime since,
+                                                        Pageable page);
+
+    // Ranked full-text search over message and reply (see db/migration/006_full_text_search.sql),
+    // scoped to one teacher or one student (the other id is null). Matches come from the GIN
+    // index; snippets are computed only for the returned page. Snippet text is HTML-escaped with
+    // matches wrapped in <mark>.
+    @Query(value = "select q.id as id, st.email as studentEmail, q.created_at as createdAt, hit.rank as rank, " +
+            "ts_headline('english', " + ESCAPE_HTML_START + "q.message" + ESCAPE_HTML_END + ", hit.query, " + HEADLINE_OPTIONS + ") as messageSnippet, " +
+            "case when q.reply is null then null else " +
+            "ts_headline('english', " + ESCAPE_HTML_START + "q.reply" + ESCAPE_HTML_END + ", hit.query, " + HEADLINE_OPTIONS + ") end as replySnippet " +
+            "from (select sq.id, cast(ts_rank_cd(sq.search_vector, tq.query) as double precision) as rank, tq.query " +
+            "      from student_queries sq, websearch_to_tsquery('english', :q) as tq(query) " +
+            "      where sq.search_vector @@ tq.query and sq.kind = '" + StudentQuery.KIND_QUERY + "' " +
+            "      and (cast(:teacherId as bigint) is null or sq.teacher_id = cast(:teacherId as bigint)) " +
+            "      and (cast(:studentId as bigint) is null or sq.student_id = cast(:studentId as bigint)) " +
+            "      order by rank desc, sq.id desc limit :limit offset :offset) hit " +
+            "join student_queries q on q.id = hit.id " +
+            "left join students st on st.id = q.student_id " +
+            "order by hit.rank desc, q.id desc",
+            nativeQuery = true)
+    List<SearchRow> search(@Param("q") String q,
+                           @Param("teacherId") Long teacherId,
+                           @Param("studentId") Long studentId,
+                           @Param("limit") int limit,
+                           @Param("offset") int offset);
+
+    String ESCAPE_HTML_START = "replace(replace(replace(";
+    String ESCAPE_HTML_END = ", '&', '&amp;'), '<', '&lt;'), '>', '&gt;')";
+    String HEADLINE_OPTIONS = "'StartSel=<mark>, StopSel=</mark>, MaxWords=35, MinWords=15, MaxFragments=2'";
+
+    interface SearchRow {
+        Long getId();
+        String getStudentEmail();
+        LocalDateTime getCreatedAt();
+        Double getRank();
+        String getMessageSnippet();
+        String getReplySnippet();
+    }
 }
@@ -1,11 +1,43 @@
 package com.example.backend.repository;
 
+import com.example.backend.model.Emails;
 import com.example.backend.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
     Optional<Student> findByEmail(String email);
     Optional<Student> findByEmailIgnoreCase(String email);
+    Optional<Student> findByEmailNormalized(String emailNormalized);
+
+    // id/name/email only, for identity resolution (see IdentityService)
+    @Query("select s.id as id, s.name as name, s.email as email from Student s where s.emailNormalized = :emailNormalized")
+    Optional<IdentityRow> findIdentityByEmailNormalized(@Param("emailNormalized") String emailNormalized);
+
+    @Query("select s.id as id, s.name as name, s.email as email from Student s where s.id = :id")
+    Optional<IdentityRow> findIdentityById(@Param("id") Long id);
+
+    // Lowest-id student as a single-row query (LIMIT 1), for requests with no identity at all.
+    Optional<IdentityRow> findFirstByOrderByIdAsc();
+
+    // Which of the given ids exist, without hydrating the students.
+    @Query("select s.id from Student s where s.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Single indexed probe on the normalized email (see Emails.normalize).
+    default Optional<Student> lookupByEmail(String email) {
+        String norm = Emails.normalize(email);
+        return norm == null ? Optional.empty() : findByEmailNormalized(norm);
+    }
+
+    interface IdentityRow {
+        Long getId();
+        String getName();
+        String getEmail();
+    }
 }
@@ -1,11 +1,31 @@
 package com.example.backend.repository;
 
+import com.example.backend.model.Emails;
 import com.example.backend.model.Teacher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface TeacherRepository extends JpaRepository<Teacher, Long> {
     Optional<Teacher> findByEmail(String email);
     Optional<Teacher> findByEmailIgnoreCase(String email);
+    Optional<Teacher> findByEmailNormalized(String emailNormalized);
+
+    // id/name/email only, for identity resolution (see IdentityService)
+    @Query("select t.id as id, t.name as name, t.email as email from Teacher t where t.emailNormalized = :emailNormalized")
+    Optional<IdentityRow> findIdentityByEmailNormalized(@Param("emailNormalized") String emailNormalized);
+
+    // Single indexed probe on the normalized email (see Emails.normalize).
+    default Optional<Teacher> lookupByEmail(String email) {
+        String norm = Emails.normalize(email);
+        return norm == null ? Optional.empty() : findByEmailNormalized(norm);
+    }
+
+    interface IdentityRow {
+        Long getId();
+        String getName();
+        String getEmail();
+    }
 }
@@ -0,0 +1,55 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Assignment;
+import com.example.backend.model.AssignmentSubmission;
+import com.example.backend.model.OutboxEvent;
+import com.example.backend.repository.AssignmentRepository;
+import com.example.backend.repository.AssignmentSubmissionRepository;
+import com.example.backend.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class AssignmentService {
+
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentSubmissionRepository assignmentSubmissionRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final FileStorageService fileStorageService;
+
+    public AssignmentService(AssignmentRepository assignmentRepository,
+                             AssignmentSubmissionRepository assignmentSubmissionRepository,
+                             OutboxEventRepository outboxEventRepository,
+                             FileStorageService fileStorageService) {
+        this.assignmentRepository = assignmentRepository;
+        this.assignmentSubmissionRepository = assignmentSubmissionRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.fileStorageService = fileStorageService;
+    }
+
+    /**
+     * Saves the assignment together with an ASSIGNMENT_POSTED outbox event and the reference to
+     * its attached file, if any. Student notifications are created afterwards by
+     * {@link OutboxWorker}, so the cost of posting does not depend on class size.
+     */
+    @Transactional
+    public Assignment publish(Assignment assignment, FileStorageService.StoredContent file) {
+        attach(file);
+        Assignment saved = assignmentRepository.save(assignment);
+        outboxEventRepository.save(new OutboxEvent(OutboxEvent.ASSIGNMENT_POSTED, saved.getId()));
+        return saved;
+    }
+
+    /** Saves the submission and the reference to its attached file, if any, in one transaction. */
+    @Transactional
+    public AssignmentSubmission submit(AssignmentSubmission submission, FileStorageService.StoredContent file) {
+        attach(file);
+        return assignmentSubmissionRepository.save(submission);
+    }
+
+    private void attach(FileStorageService.StoredContent file) {
+        if (file != null && !fileStorageService.addReference(file)) {
+            throw new IllegalStateException("stored content " + file.sha256 + " was released");
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps attendance range-partitioned by month (attendance_pYYYYMM, plus attendance_default for
+ * dates no partition covers), so date-range queries prune to the months they touch and vacuum and
+ * index maintenance work on one month at a time.
+ *
+ * <ul>
+ *   <li>At startup, converts an unpartitioned attendance table (as Hibernate creates it) in one
+ *   transaction. The primary key becomes (id, date), since a partitioned table's unique keys must
+ *   include the partition key; uk_attendance_student_subject_date already does. Rows the unique
+ *   keys reject (duplicates of a newer row) or that have no date stay behind in
+ *   attendance_unpartitioned.</li>
+ *   <li>On app.attendance-partitions.maintenance-cron, creates the partitions for the next
+ *   app.attendance-partitions.premake-months months and moves any rows that landed in
+ *   attendance_default into a partition of their own.</li>
+ *   <li>With app.attendance-partitions.retention-months &gt; 0, archives months older than that to
+ *   gzipped CSV files in app.attendance-partitions.archive-dir, then detaches and drops them and
+ *   subtracts their rows from attendance_summary, so all-time totals cover the retained months.</li>
+ * </ul>
+ *
+ * All partition DDL holds a transaction-level advisory lock, so instances starting or running
+ * maintenance at the same time take turns, and each re-checks the catalog once it has the lock.
+ */
+@Component
+public class AttendancePartitionJob implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendancePartitionJob.class);
+
+    static final String DEFAULT_PARTITION = "attendance_default";
+    private static final String PARTITION_PREFIX = "attendance_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    // column types as Hibernate maps the Attendance entity
+    private static final String CREATE_PARTITIONED_SQL =
+            "CREATE TABLE attendance (" +
+            "id bigint NOT NULL, date date NOT NULL, present boolean NOT NULL, student_id bigint, " +
+            "subject_id varchar(255), teacher_id bigint, " +
+            "CONSTRAINT attendance_pkey PRIMARY KEY (id, date), " +
+            "CONSTRAINT uk_attendance_student_subject_date UNIQUE (student_id, subject_id, date), " +
+            "CONSTRAINT fk_attendance_student FOREIGN KEY (student_id) REFERENCES students (id), " +
+            "CONSTRAINT fk_attendance_teacher FOREIGN KEY (teacher_id) REFERENCES teachers (id)" +
+            ") PARTITION BY RANGE (date)";
+
+    // as in 007_attendance_unique_roll_call.sql: the unique key above treats NULL subjects as distinct
+    private static final String CREATE_NO_SUBJECT_INDEX_SQL =
+            "CREATE UNIQUE INDEX uk_attendance_student_date_no_subject ON attendance (student_id, date) WHERE subject_id IS NULL";
+
+    // advisory lock key for partition DDL (any constant the application does not use elsewhere)
+    private static final long PARTITION_DDL_LOCK = 0x4154_5450_4444_4cL;
+
+    private static final String LIST_PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'attendance'::regclass AND c.relname LIKE 'attendance\\_p%' ORDER BY c.relname";
+
+    private static final String SUBTRACT_SUMMARY_SQL =
+            "UPDATE attendance_summary s SET present = s.present - a.present, total = s.total - a.total " +
+            "FROM (SELECT student_id, coalesce(subject_id, '') AS subject_id, coalesce(teacher_id, 0) AS teacher_id, " +
+            "      count(*) FILTER (WHERE present) AS present, count(*) AS total " +
+            "      FROM %s WHERE student_id IS NOT NULL GROUP BY 1, 2, 3) a " +
+            "WHERE s.student_id = a.student_id AND s.subject_id = a.subject_id AND s.teacher_id = a.teacher_id";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int premakeMonths;
+    private final int retentionMonths;
+    private final Path archiveDir;
+    private final Counter archivedRows;
+
+    public AttendancePartitionJob(DataSource dataSource,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.attendance-partitions.premake-months:3}") int premakeMonths,
+                                  @Value("${app.attendance-partitions.retention-months:0}") int retentionMonths,
+                                  @Value("${app.attendance-partitions.archive-dir:archive/attendance}") String archiveDir) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+        this.archiveDir = Path.of(archiveDir);
+        this.archivedRows = Counter.builder("attendance.partitions.archived.rows")
+                .description("attendance rows exported to archive files and dropped")
+                .register(meterRegistry);
+    }
+
+    // After the schema and the SQL migrations are in place, before the web server takes requests.
+    @Override
+    public void afterSingletonsInstantiated() {
+        convertIfUnpartitioned();
+        ensureRange(YearMonth.now().minusMonths(1).atDay(1), YearMonth.now().plusMonths(premakeMonths).atDay(1));
+    }
+
+    @Scheduled(cron = "${app.attendance-partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        try {
+            ensureRange(YearMonth.now().atDay(1), YearMonth.now().plusMonths(premakeMonths).atDay(1));
+            // rows written for months without a partition (backfills, imports) get one now
+            List<Date> stray = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT date_trunc('month', date)::date FROM " + DEFAULT_PARTITION, Date.class);
+            for (Date month : stray) ensureMonth(YearMonth.from(month.toLocalDate()));
+            if (retentionMonths > 0) archiveBefore(YearMonth.now().minusMonths(retentionMonths));
+        } catch (Exception e) {
+            log.error("attendance partition maintenance failed", e);
+        }
+    }
+
+    /** Creates the monthly partitions covering [from, to]; for bulk loads that write past months. */
+    public void ensureRange(LocalDate from, LocalDate to) {
+        for (YearMonth m = YearMonth.from(from); !m.isAfter(YearMonth.from(to)); m = m.plusMonths(1)) {
+            ensureMonth(m);
+        }
+    }
+
+    private void ensureMonth(YearMonth month) {
+        String name = partitionName(month);
+        if (exists(name)) return;
+        LocalDate lo = month.atDay(1);
+        LocalDate hi = month.plusMonths(1).atDay(1);
+        // Built standalone and attached, so rows already in the default partition for this month
+        // can be moved first (CREATE ... PARTITION OF fails if the default holds any). The CHECK
+        // lets ATTACH skip scanning the new table; indexes and foreign keys come from the parent.
+        transactionTemplate.executeWithoutResult(status -> {
+            lockPartitionDdl();
+            // another instance may have created it while this one waited
+            if (exists(name)) return;
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE attendance INCLUDING DEFAULTS)");
+            jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + name + "_range CHECK (date >= DATE '" + lo + "' AND date < DATE '" + hi + "')");
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE date >= ? AND date < ? RETURNING *) " +
+                    "INSERT INTO " + name + " SELECT * FROM moved", lo, hi);
+            jdbcTemplate.execute("ALTER TABLE attendance ATTACH PARTITION " + name + " FOR VALUES FROM ('" + lo + "') TO ('" + hi + "')");
+            jdbcTemplate.execute("ALTER TABLE " + name + " DROP CONSTRAINT " + name + "_range");
+            log.info("created attendance partition {}{}", name, moved > 0 ? " (" + moved + " rows moved from " + DEFAULT_PARTITION + ")" : "");
+        });
+    }
+
+    private void convertIfUnpartitioned() {
+        if (!"r".equals(attendanceRelkind())) return;
+        long start = System.nanoTime();
+        Long moved = transactionTemplate.execute(status -> {
+            lockPartitionDdl();
+            jdbcTemplate.execute("LOCK TABLE attendance IN ACCESS EXCLUSIVE MODE");
+            // another instance may have converted it while this one waited for the locks
+            if (!"r".equals(attendanceRelkind())) return null;
+            jdbcTemplate.execute("ALTER TABLE attendance RENAME TO attendance_unpartitioned");
+            // constraint indexes share the schema's namespace with the new table's
+            jdbcTemplate.execute("ALTER TABLE attendance_unpartitioned RENAME CONSTRAINT attendance_pkey TO attendance_unpartitioned_pkey");
+            jdbcTemplate.execute("ALTER TABLE attendance_unpartitioned DROP CONSTRAINT IF EXISTS uk_attendance_student_subject_date");
+            // plain indexes when 007_attendance_unique_roll_call created them rather than Hibernate
+            jdbcTemplate.execute("DROP INDEX IF EXISTS uk_attendance_student_subject_date");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS uk_attendance_student_date_no_subject");
+            jdbcTemplate.execute(CREATE_PARTITIONED_SQL);
+            jdbcTemplate.execute(CREATE_NO_SUBJECT_INDEX_SQL);
+            jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF attendance DEFAULT");
+            LocalDate min = jdbcTemplate.queryForObject("SELECT min(date) FROM attendance_unpartitioned", LocalDate.class);
+            LocalDate max = jdbcTemplate.queryForObject("SELECT max(date) FROM attendance_unpartitioned", LocalDate.class);
+            if (min != null) ensureRange(min, max);
+            // newest first, so where rows collide on a unique key (a table that never got the
+            // constraint can hold duplicates) the newest is kept, as in 007_attendance_unique_roll_call
+            long rows = jdbcTemplate.update("INSERT INTO attendance (id, date, present, student_id, subject_id, teacher_id) " +
+                    "SELECT id, date, present, student_id, subject_id, teacher_id FROM attendance_unpartitioned " +
+                    "WHERE date IS NOT NULL ORDER BY id DESC ON CONFLICT DO NOTHING");
+            jdbcTemplate.update("DELETE FROM attendance_unpartitioned u WHERE EXISTS " +
+                    "(SELECT 1 FROM attendance a WHERE a.id = u.id AND a.date = u.date)");
+            Long left = jdbcTemplate.queryForObject("SELECT count(*) FROM attendance_unpartitioned", Long.class);
+            if (left == 0) {
+                jdbcTemplate.execute("DROP TABLE attendance_unpartitioned");
+            } else {
+                // undated rows (the partition key cannot be null) and duplicates: leave them for
+                // someone to look at rather than drop them; AttendanceSummaryRebuildJob fixes the totals
+                log.warn("{} attendance rows without a date or duplicating a newer row were not partitioned; they remain in attendance_unpartitioned", left);
+            }
+            return rows;
+        });
+        if (moved == null) {
+            log.info("attendance was converted to monthly partitions by another instance");
+        } else {
+            log.info("attendance converted to monthly partitions: {} rows in {} ms", moved, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private String attendanceRelkind() {
+        return jdbcTemplate.queryForObject(
+                "SELECT coalesce((SELECT relkind::text FROM pg_class WHERE oid = to_regclass('attendance')), '')", String.class);
+    }
+
+    private boolean exists(String table) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+    }
+
+    // held until the surrounding transaction ends
+    private void lockPartitionDdl() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", PARTITION_DDL_LOCK);
+    }
+
+    private void archiveBefore(YearMonth cutoff) throws IOException {
+        String cutoffName = partitionName(cutoff);
+        for (String partition : jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class)) {
+            if (partition.compareTo(cutoffName) >= 0) break;
+            archive(partition);
+        }
+    }
+
+    // Export, detach, adjust the summary and drop in one transaction. The partition is locked
+    // against writes first so the file holds every row that is dropped; the file is in place
+    // before the commit, so a failure at worst leaves an archive of rows that still exist.
+    private void archive(String partition) throws IOException {
+        Files.createDirectories(archiveDir);
+        Path target = archiveDir.resolve(partition + ".csv.gz");
+        Path tmp = archiveDir.resolve(partition + ".csv.gz.tmp");
+        long start = System.nanoTime();
+        Long rows = transactionTemplate.execute(status -> {
+            lockPartitionDdl();
+            // another instance may have archived it while this one waited
+            if (!exists(partition)) return null;
+            jdbcTemplate.execute("LOCK TABLE " + partition + " IN SHARE MODE");
+            long exported = exportTo(partition, tmp);
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // don't queue behind long reads while holding up every other attendance query
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+            jdbcTemplate.execute("ALTER TABLE attendance DETACH PARTITION " + partition);
+            jdbcTemplate.update(String.format(SUBTRACT_SUMMARY_SQL, partition));
+            jdbcTemplate.update("DELETE FROM attendance_summary WHERE total <= 0");
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            return exported;
+        });
+        if (rows == null) return;
+        archivedRows.increment(rows);
+        log.info("archived attendance partition {} ({} rows) to {} in {} ms", partition, rows, target, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long exportTo(String partition, Path file) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            long rows = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(
+                    "COPY (SELECT id, date, present, student_id, subject_id, teacher_id FROM " + partition + " ORDER BY id) " +
+                    "TO STDOUT WITH (FORMAT csv, HEADER)", out);
+            out.close();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("exporting " + partition + " failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
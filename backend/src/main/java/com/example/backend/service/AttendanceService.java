@@ -0,0 +1,110 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Attendance;
+import com.example.backend.model.AttendanceSummary;
+import com.example.backend.model.Teacher;
+import com.example.backend.repository.AttendanceRepository;
+import com.example.backend.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class AttendanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SUMMARY_UPSERT_SQL =
+            "INSERT INTO attendance_summary (student_id, subject_id, teacher_id, present, total) VALUES (?, ?, ?, ?, 1) " +
+            "ON CONFLICT (student_id, subject_id, teacher_id) " +
+            "DO UPDATE SET present = attendance_summary.present + EXCLUDED.present, total = attendance_summary.total + 1";
+
+    private final AttendanceRepository attendanceRepository;
+    private final StudentRepository studentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public AttendanceService(AttendanceRepository attendanceRepository, StudentRepository studentRepository, JdbcTemplate jdbcTemplate) {
+        this.attendanceRepository = attendanceRepository;
+        this.studentRepository = studentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records one roll call in a single transaction: one query to validate the student ids, one to
+     * detect rows already recorded for this subject and date, then JDBC-batched inserts. If any
+     * student already has attendance for the subject and date nothing is written and the
+     * conflicting ids are returned. Unknown student ids are skipped. attendance_summary counts are
+     * incremented in the same transaction.
+     */
+    @Transactional
+    public RollCallResult recordRollCall(Teacher teacher, String subjectId, LocalDate date, Map<Long, Boolean> presentByStudentId) {
+        long start = System.nanoTime();
+        RollCallResult result = new RollCallResult();
+        if (presentByStudentId.isEmpty()) return result;
+
+        Set<Long> known = new HashSet<>(studentRepository.findExistingIds(presentByStudentId.keySet()));
+        result.skipped = presentByStudentId.size() - known.size();
+        if (known.isEmpty()) return result;
+
+        List<Long> duplicates = attendanceRepository.findRecordedStudentIds(subjectId, date, known);
+        if (!duplicates.isEmpty()) {
+            result.duplicateStudentIds = duplicates;
+            return result;
+        }
+
+        // keeps AttendanceSummaryRebuildJob off these students' summary rows until this commits;
+        // taken before any row is written, so it cannot deadlock with the job
+        for (long range : known.stream().map(AttendanceSummaryRebuildJob::rangeOf).distinct().sorted().toList()) {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock_shared(?, ?)",
+                    AttendanceSummaryRebuildJob.SUMMARY_LOCK_SPACE, (int) range);
+        }
+
+        List<Attendance> rows = new ArrayList<>(known.size());
+        for (Map.Entry<Long, Boolean> e : presentByStudentId.entrySet()) {
+            if (!known.contains(e.getKey())) continue;
+            Attendance att = new Attendance();
+            // reference proxy: the id was validated above, no per-student SELECT needed
+            att.setStudent(studentRepository.getReferenceById(e.getKey()));
+            att.setDate(date);
+            att.setPresent(Boolean.TRUE.equals(e.getValue()));
+            att.setTeacher(teacher);
+            att.setSubjectId(subjectId);
+            rows.add(att);
+        }
+        attendanceRepository.saveAll(rows);
+        attendanceRepository.flush();
+        result.inserted = rows.size();
+
+        // keep attendance_summary in step, in this transaction
+        String summarySubject = subjectId == null ? AttendanceSummary.NO_SUBJECT : subjectId;
+        long summaryTeacher = teacher == null ? AttendanceSummary.NO_TEACHER : teacher.getId();
+        List<Object[]> increments = new ArrayList<>(rows.size());
+        for (Attendance att : rows) {
+            increments.add(new Object[]{att.getStudent().getId(), summarySubject, summaryTeacher, att.isPresent() ? 1 : 0});
+        }
+        for (int i = 0; i < increments.size(); i += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(SUMMARY_UPSERT_SQL, increments.subList(i, Math.min(i + BATCH_SIZE, increments.size())));
+        }
+
+        log.info("recorded roll call teacherId={} subjectId={} date={} inserted={} skipped={} in {} ms",
+                teacher.getId(), subjectId, date, result.inserted, result.skipped, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    public static class RollCallResult {
+        public int inserted;
+        public int skipped;
+        public List<Long> duplicateStudentIds = List.of();
+    }
+}
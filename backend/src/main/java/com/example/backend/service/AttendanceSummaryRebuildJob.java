@@ -0,0 +1,105 @@
+package com.example.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reconciles attendance_summary with the raw attendance rows, correcting drift from writes that
+ * bypassed AttendanceService (manual SQL, imports, deletes). Works through student ids in ranges
+ * of {@link #RANGE_SIZE}, one short transaction each. Each transaction holds an exclusive advisory
+ * lock on its range, and AttendanceService takes the same lock in shared mode for the students of
+ * a roll call. So a roll call only waits while its own students are being recounted, and the
+ * recount cannot overwrite an increment it did not see. Scheduled with
+ * app.attendance-summary.rebuild-cron.
+ */
+@Component
+public class AttendanceSummaryRebuildJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceSummaryRebuildJob.class);
+
+    private static final String UPSERT_DRIFTED_SQL =
+            "INSERT INTO attendance_summary (student_id, subject_id, teacher_id, present, total) " +
+            "SELECT student_id, coalesce(subject_id, ''), coalesce(teacher_id, 0), " +
+            "       count(*) FILTER (WHERE present), count(*) " +
+            "FROM attendance WHERE student_id >= ? AND student_id < ? " +
+            "GROUP BY student_id, coalesce(subject_id, ''), coalesce(teacher_id, 0) " +
+            "ON CONFLICT (student_id, subject_id, teacher_id) " +
+            "DO UPDATE SET present = EXCLUDED.present, total = EXCLUDED.total " +
+            "WHERE attendance_summary.present <> EXCLUDED.present OR attendance_summary.total <> EXCLUDED.total";
+
+    private static final String DELETE_ORPHANED_SQL =
+            "DELETE FROM attendance_summary s WHERE s.student_id >= ? AND s.student_id < ? AND NOT EXISTS (" +
+            "SELECT 1 FROM attendance a WHERE a.student_id = s.student_id " +
+            "AND coalesce(a.subject_id, '') = s.subject_id AND coalesce(a.teacher_id, 0) = s.teacher_id)";
+
+    private static final String ID_BOUNDS_SQL =
+            "SELECT min(lo), max(hi) FROM (" +
+            "SELECT min(student_id) AS lo, max(student_id) AS hi FROM attendance " +
+            "UNION ALL SELECT min(student_id), max(student_id) FROM attendance_summary) b";
+
+    // students per reconciliation transaction and per advisory lock
+    static final long RANGE_SIZE = 1_000;
+    // first key of the two-key advisory locks shared with AttendanceService
+    static final int SUMMARY_LOCK_SPACE = 0x41545355;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter corrected;
+
+    public AttendanceSummaryRebuildJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.corrected = Counter.builder("attendance.summary.corrected")
+                .description("attendance_summary rows inserted, fixed or removed by the rebuild job")
+                .register(meterRegistry);
+    }
+
+    /** The advisory lock key (second half) that covers this student's attendance_summary rows. */
+    static long rangeOf(long studentId) {
+        return Math.floorDiv(studentId, RANGE_SIZE);
+    }
+
+    @Scheduled(cron = "${app.attendance-summary.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        try {
+            long[] bounds = jdbcTemplate.queryForObject(ID_BOUNDS_SQL,
+                    (rs, i) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)});
+            int upserted = 0;
+            int deleted = 0;
+            if (bounds != null) {
+                for (long range = rangeOf(bounds[0]); range <= rangeOf(bounds[1]); range++) {
+                    int[] changed = reconcile(range);
+                    upserted += changed[0];
+                    deleted += changed[1];
+                }
+            }
+            corrected.increment(upserted + deleted);
+            if (upserted + deleted > 0) {
+                log.warn("attendance summary drift corrected: {} rows upserted, {} removed in {} ms",
+                        upserted, deleted, (System.nanoTime() - start) / 1_000_000);
+            } else {
+                log.info("attendance summary verified in {} ms", (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (Exception e) {
+            log.error("attendance summary rebuild failed", e);
+        }
+    }
+
+    private int[] reconcile(long range) {
+        long from = range * RANGE_SIZE;
+        long to = from + RANGE_SIZE;
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?, ?)", SUMMARY_LOCK_SPACE, (int) range);
+            int upserted = jdbcTemplate.update(UPSERT_DRIFTED_SQL, from, to);
+            int deleted = jdbcTemplate.update(DELETE_ORPHANED_SQL, from, to);
+            return new int[]{upserted, deleted};
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Assignment;
+import com.example.backend.model.AssignmentSubmission;
+import jakarta.persistence.PreRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Releases the stored-file reference held by an assignment or submission when it is deleted, in
+ * the deleting transaction. Bulk JPQL/SQL deletes bypass entity callbacks and must release
+ * references themselves.
+ */
+@Component
+public class FileReferenceListener {
+
+    // looked up lazily: the store's repository needs the EntityManagerFactory that creates this listener
+    private final ObjectProvider<FileStorageService> fileStorageService;
+
+    public FileReferenceListener(ObjectProvider<FileStorageService> fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    @PreRemove
+    public void release(Object entity) {
+        String hash = null;
+        if (entity instanceof Assignment a) hash = a.getFileHash();
+        else if (entity instanceof AssignmentSubmission s) hash = s.getFileHash();
+        if (hash != null) fileStorageService.getObject().release(hash);
+    }
+}
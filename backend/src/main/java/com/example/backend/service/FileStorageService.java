@@ -1,36 +1,230 @@
 package com.example.backend.service;
 
+import com.example.backend.model.StoredFile;
+import com.example.backend.repository.StoredFileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
+/**
+ * Content-addressed upload store. Files live at {@code <upload dir>/<first 2 hex chars>/<sha256>},
+ * so identical content is stored once and reference-counted in stored_files.
+ *
+ * An upload is moved from the servlet container's multipart temp file into
+ * {@code <upload dir>/.incoming} (a rename, since {@link com.example.backend.config.MultipartConfig} spools parts there),
+ * hashed (SHA-256 and CRC-32) in one streaming read, then renamed into place. Content is written
+ * to disk once and never buffered in heap beyond spring.servlet.multipart.file-size-threshold.
+ *
+ * Storing bytes and counting references are separate steps: the reference is taken by
+ * {@link #addReference} in the transaction that saves the row holding the hash, so a failed save
+ * does not leave content referenced by nothing.
+ */
 @Service
 public class FileStorageService {
 
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+
+    // response header carrying the SHA-256 of stored upload content
+    public static final String CONTENT_HASH_HEADER = "X-Content-SHA256";
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
     private final Path storageDir;
+    private final Path incomingDir;
+    private final StoredFileRepository storedFileRepository;
 
-    public FileStorageService(@Value("${app.upload.dir:uploads}") String uploadDir) throws IOException {
-        this.storageDir = Paths.get(uploadDir).toAbsolutePath().normalize();
+    public FileStorageService(@Value("${app.upload.dir:uploads}") String uploadDir,
+                              StoredFileRepository storedFileRepository) throws IOException {
+        this.storageDir = storageDir(uploadDir);
+        this.incomingDir = incomingDir(uploadDir);
+        this.storedFileRepository = storedFileRepository;
         Files.createDirectories(this.storageDir);
+        Files.createDirectories(this.incomingDir);
+    }
+
+    static Path storageDir(String uploadDir) {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /** Where multipart parts are spooled and uploads are staged before they are renamed into place. */
+    public static Path incomingDir(String uploadDir) {
+        return storageDir(uploadDir).resolve(".incoming");
+    }
+
+    /**
+     * Writes the upload into the store, or finds identical content already stored. No reference
+     * is taken; pass the result to {@link #addReference}.
+     */
+    public StoredContent store(MultipartFile file) throws IOException {
+        Path tmp = incomingDir.resolve(UUID.randomUUID() + ".part");
+        try {
+            // transferTo(File) lets the container rename its spooled part; transferTo(Path) copies it
+            file.transferTo(tmp.toFile());
+            CRC32 crc = new CRC32();
+            String sha256 = digest(tmp, crc);
+            long size = Files.size(tmp);
+            Path target = pathFor(sha256);
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                log.debug("upload deduplicated against existing content {}", sha256);
+            } else {
+                moveIntoPlace(tmp, target);
+            }
+            return new StoredContent(sha256, target, size, originalName(file), file.getContentType(), crc.getValue());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Content that is already stored, so a client that knows the hash can skip the upload. Returns
+     * empty if the hash is unknown. As with {@link #store}, no reference is taken.
+     */
+    public Optional<StoredContent> existing(String sha256, String fileName) {
+        String hash = normalizeHash(sha256);
+        if (hash == null || !storedFileRepository.existsById(hash)) return Optional.empty();
+        try {
+            return Optional.of(new StoredContent(hash, pathFor(hash), Files.size(pathFor(hash)), fileName, null, null));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Adds a reference to stored content. Runs in the caller's transaction, the one that saves the
+     * row holding the hash, so the count rolls back with it. Returns false if content found by
+     * {@link #existing} has been released since.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean addReference(StoredContent content) {
+        if (content.crc32 == null) return storedFileRepository.addReferenceIfExists(content.sha256) > 0;
+        storedFileRepository.addReference(content.sha256, content.size, content.contentType, content.crc32);
+        return true;
+    }
+
+    /** Metadata for stored content, or empty if the hash is unknown or its bytes are missing. */
+    public Optional<StoredFile> lookup(String sha256) {
+        String hash = normalizeHash(sha256);
+        if (hash == null) return Optional.empty();
+        return storedFileRepository.findById(hash).filter(f -> Files.isReadable(pathFor(hash)));
     }
 
-    public String storeFile(MultipartFile file) throws IOException {
-        String original = StringUtils.cleanPath(file.getOriginalFilename());
-        String ext = "";
-        int i = original.lastIndexOf('.');
-        if (i >= 0) ext = original.substring(i);
-        String filename = UUID.randomUUID() + ext;
-        Path target = storageDir.resolve(filename);
-        Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-        return target.toString();
+    /** True if content with this hash is stored. */
+    public boolean exists(String sha256) {
+        String hash = normalizeHash(sha256);
+        return hash != null && storedFileRepository.existsById(hash) && Files.exists(pathFor(hash));
+    }
+
+    /**
+     * Drops one reference in the caller's transaction; the bytes are deleted once nothing refers
+     * to them, after that transaction commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String sha256) {
+        String hash = normalizeHash(sha256);
+        if (hash == null) return;
+        storedFileRepository.removeReference(hash);
+        if (storedFileRepository.deleteIfUnreferenced(hash) == 0) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    Files.deleteIfExists(pathFor(hash));
+                } catch (IOException e) {
+                    log.warn("could not delete unreferenced content {}", hash, e);
+                }
+            }
+        });
+    }
+
+    public Path pathFor(String sha256) {
+        return storageDir.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    public static String normalizeHash(String sha256) {
+        if (sha256 == null) return null;
+        String h = sha256.trim().toLowerCase(Locale.ROOT);
+        return SHA256_HEX.matcher(h).matches() ? h : null;
+    }
+
+    private static void moveIntoPlace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // a concurrent upload of the same content got there first
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tmp, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // same as above
+            }
+        }
+    }
+
+    // SHA-256 of the file as hex, updating crc with the same read.
+    private static String digest(Path file, CRC32 crc) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = new CheckedInputStream(new DigestInputStream(Files.newInputStream(file), md), crc)) {
+            while (in.read(buf) != -1) {
+                // digest and checksum are updated as the stream is read
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static String originalName(MultipartFile file) {
+        String original = file.getOriginalFilename();
+        return original == null ? null : StringUtils.cleanPath(original);
+    }
+
+    public static class StoredContent {
+        public final String sha256;
+        public final Path path;
+        public final long size;
+        public final String fileName;
+        // set for freshly stored uploads, null for content found by hash
+        final String contentType;
+        final Long crc32;
+
+        StoredContent(String sha256, Path path, long size, String fileName, String contentType, Long crc32) {
+            this.sha256 = sha256;
+            this.path = path;
+            this.size = size;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.crc32 = crc32;
+        }
     }
 }
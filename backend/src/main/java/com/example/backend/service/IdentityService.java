@@ -0,0 +1,108 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Emails;
+import com.example.backend.model.Student;
+import com.example.backend.model.Teacher;
+import com.example.backend.repository.StudentRepository;
+import com.example.backend.repository.TeacherRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Resolves students and teachers from an email address through a bounded in-process cache keyed
+ * by normalized email (see {@link Emails#normalize}). Only id, name and email are cached; callers
+ * that need an entity for a relationship use {@link #studentRef}/{@link #teacherRef}, which return
+ * unloaded references. Unknown emails are not cached, so a newly registered user resolves at once.
+ *
+ * Entries expire after app.identity-cache.ttl-seconds, which bounds staleness when another
+ * instance changes a user. Hit/miss/eviction metrics are published as cache.* meters tagged
+ * cache=identity.students and cache=identity.teachers.
+ */
+@Service
+public class IdentityService {
+
+    private final StudentRepository studentRepository;
+    private final TeacherRepository teacherRepository;
+    private final Cache<String, Identity> students;
+    private final Cache<String, Identity> teachers;
+
+    public IdentityService(StudentRepository studentRepository,
+                           TeacherRepository teacherRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.identity-cache.max-size:10000}") long maxSize,
+                           @Value("${app.identity-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.studentRepository = studentRepository;
+        this.teacherRepository = teacherRepository;
+        this.students = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.teachers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, students, "identity.students");
+        CaffeineCacheMetrics.monitor(meterRegistry, teachers, "identity.teachers");
+    }
+
+    public Optional<Identity> student(String email) {
+        String norm = Emails.normalize(email);
+        if (norm == null) return Optional.empty();
+        return Optional.ofNullable(students.get(norm, k -> studentRepository.findIdentityByEmailNormalized(k)
+                .map(Identity::of)
+                .orElse(null)));
+    }
+
+    public Optional<Identity> teacher(String email) {
+        String norm = Emails.normalize(email);
+        if (norm == null) return Optional.empty();
+        return Optional.ofNullable(teachers.get(norm, k -> teacherRepository.findIdentityByEmailNormalized(k)
+                .map(r -> new Identity(r.getId(), r.getName(), r.getEmail()))
+                .orElse(null)));
+    }
+
+    /** Unloaded entity reference for use in relationships and repository queries. */
+    public Student studentRef(Identity identity) {
+        return studentRepository.getReferenceById(identity.id);
+    }
+
+    public Teacher teacherRef(Identity identity) {
+        return teacherRepository.getReferenceById(identity.id);
+    }
+
+    /** Call after writing a student so the next lookup sees the change. */
+    public void evictStudent(String email) {
+        String norm = Emails.normalize(email);
+        if (norm != null) students.invalidate(norm);
+    }
+
+    public void evictTeacher(String email) {
+        String norm = Emails.normalize(email);
+        if (norm != null) teachers.invalidate(norm);
+    }
+
+    public static class Identity {
+        public final Long id;
+        public final String name;
+        public final String email;
+
+        public Identity(Long id, String name, String email) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+        }
+
+        public static Identity of(StudentRepository.IdentityRow r) {
+            return new Identity(r.getId(), r.getName(), r.getEmail());
+        }
+    }
+}
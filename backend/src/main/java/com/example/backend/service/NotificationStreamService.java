@@ -0,0 +1,309 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events fan-out for student and teacher dashboards.
+ *
+ * Events are published after the surrounding transaction commits. Each connection has a bounded
+ * send buffer drained by a small dispatcher pool; a connection that falls behind is closed and the
+ * client reconnects with Last-Event-ID. A send still blocked after app.sse.write-timeout-ms (a
+ * client that stopped reading) closes its connection, and its dispatcher thread is replaced until
+ * the write returns, which the container's socket write timeout (server.tomcat.connection-timeout)
+ * bounds; so stalled clients cannot hold the pool against everyone else's streams. Each user keeps a short replay window of recent events; if
+ * the requested id is older than the window, a "resync" event tells the client to re-fetch over
+ * REST. State is per-instance, so with several backend instances each one only streams what it
+ * published itself.
+ */
+@Service
+public class NotificationStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationStreamService.class);
+
+    private static final long RECONNECT_MILLIS = 3000;
+
+    // Connection.sendStartedAt when no send is in progress, and once the watchdog has given up on one
+    private static final long NOT_SENDING = 0;
+    private static final long STALLED = -1;
+
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final int replaySize;
+    private final int maxConnectionsPerUser;
+    private final long writeTimeoutMillis;
+
+    // Seeded from the clock so ids keep increasing across restarts; anything a client saw from a
+    // previous process is older than startEventId and triggers a resync.
+    private final long startEventId = System.currentTimeMillis();
+    private final AtomicLong nextEventId = new AtomicLong(startEventId);
+    private final Map<String, UserChannel> channels = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor dispatcher;
+
+    public NotificationStreamService(@Value("${app.sse.timeout-ms:1800000}") long timeoutMillis,
+                                     @Value("${app.sse.buffer-size:64}") int bufferSize,
+                                     @Value("${app.sse.replay-size:100}") int replaySize,
+                                     @Value("${app.sse.max-connections-per-user:5}") int maxConnectionsPerUser,
+                                     @Value("${app.sse.dispatcher-threads:4}") int dispatcherThreads,
+                                     @Value("${app.sse.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        // a subscribe queues the "connected" comment and possibly a resync ahead of the replay
+        if (bufferSize < 3) throw new IllegalArgumentException("app.sse.buffer-size must be at least 3");
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        AtomicInteger n = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "sse-dispatch-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static String studentKey(Long studentId) { return "student:" + studentId; }
+    public static String teacherKey(Long teacherId) { return "teacher:" + teacherId; }
+
+    /** Opens a stream for the user, replaying anything after lastEventId that is still in the window. */
+    public SseEmitter subscribe(String userKey, String lastEventId) {
+        UserChannel channel = channels.computeIfAbsent(userKey, k -> new UserChannel());
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Connection conn = new Connection(channel, emitter);
+        emitter.onCompletion(() -> channel.connections.remove(conn));
+        emitter.onTimeout(() -> { channel.connections.remove(conn); emitter.complete(); });
+        emitter.onError(e -> channel.connections.remove(conn));
+
+        Long since = parseEventId(lastEventId);
+        // The replay is queued before the connection becomes visible to dispatch(), and both hold
+        // the channel lock, so a live event can never overtake an older replayed one.
+        synchronized (channel) {
+            channel.lastSubscribedAt = System.currentTimeMillis();
+            // oldest connection makes room when a user opens too many tabs
+            while (channel.connections.size() >= maxConnectionsPerUser) {
+                Connection oldest = channel.connections.remove(0);
+                oldest.emitter.complete();
+            }
+            conn.enqueue(SseEmitter.event().comment("connected").reconnectTime(RECONNECT_MILLIS));
+            if (since != null) {
+                List<StreamEvent> missed = new ArrayList<>();
+                boolean gap = channel.replaySince(since, missed);
+                // replay only what fits the send buffer; the client re-fetches the rest on resync
+                int fits = bufferSize - 2;
+                if (missed.size() > fits) {
+                    missed = missed.subList(missed.size() - fits, missed.size());
+                    gap = true;
+                }
+                if (gap) conn.enqueue(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                for (StreamEvent e : missed) conn.enqueue(e.toSse());
+            }
+            if (!conn.closed) channel.connections.add(conn);
+        }
+        return emitter;
+    }
+
+    /** Sends an event to the user once the current transaction (if any) has committed. */
+    public void publish(String userKey, String type, Object data) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(userKey, type, data);
+                }
+            });
+        } else {
+            dispatch(userKey, type, data);
+        }
+    }
+
+    private void dispatch(String userKey, String type, Object data) {
+        // users who never opened a stream (or went stale) re-fetch over REST instead
+        UserChannel channel = channels.get(userKey);
+        if (channel == null) return;
+        synchronized (channel) {
+            StreamEvent event = new StreamEvent(nextEventId.incrementAndGet(), type, data);
+            channel.remember(event);
+            for (Connection conn : channel.connections) conn.enqueue(event.toSse());
+        }
+    }
+
+    // Keeps idle connections alive through proxies and detects dead clients.
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        channels.forEach((key, channel) -> {
+            if (channel.connections.isEmpty() && channel.isStale()) {
+                channels.remove(key, channel);
+                return;
+            }
+            for (Connection conn : channel.connections) conn.enqueue(SseEmitter.event().comment("heartbeat"));
+        });
+    }
+
+    // Gives up on sends blocked past the write timeout; see the class comment.
+    @Scheduled(fixedDelayString = "${app.sse.write-check-ms:1000}")
+    public void closeStalledConnections() {
+        long now = System.currentTimeMillis();
+        channels.values().forEach(channel -> {
+            for (Connection conn : channel.connections) conn.closeIfStalled(now);
+        });
+    }
+
+    // Core and maximum move together; growing raises the maximum first, shrinking lowers the core first.
+    private synchronized void resizeDispatcher(int delta) {
+        int size = dispatcher.getCorePoolSize() + delta;
+        if (delta > 0) {
+            dispatcher.setMaximumPoolSize(size);
+            dispatcher.setCorePoolSize(size);
+        } else {
+            dispatcher.setCorePoolSize(size);
+            dispatcher.setMaximumPoolSize(size);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(c -> c.connections.forEach(conn -> conn.emitter.complete()));
+        dispatcher.shutdownNow();
+    }
+
+    private static Long parseEventId(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        try { return Long.parseLong(raw.trim()); } catch (NumberFormatException e) { return null; }
+    }
+
+    private static final class StreamEvent {
+        final long id;
+        final String type;
+        final Object data;
+        final long createdAt = System.currentTimeMillis();
+
+        StreamEvent(long id, String type, Object data) {
+            this.id = id;
+            this.type = type;
+            this.data = data;
+        }
+
+        SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event().id(String.valueOf(id)).name(type).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    private final class UserChannel {
+        final List<Connection> connections = new CopyOnWriteArrayList<>();
+        private final Deque<StreamEvent> recent = new ArrayDeque<>();
+        // highest id no longer in the replay window
+        private long evictedUpTo = startEventId;
+
+        synchronized void remember(StreamEvent e) {
+            recent.addLast(e);
+            while (recent.size() > replaySize) evictedUpTo = recent.removeFirst().id;
+        }
+
+        // Collects events newer than the given id; returns true if some of them are no longer held.
+        synchronized boolean replaySince(long lastId, List<StreamEvent> out) {
+            for (StreamEvent e : recent) if (e.id > lastId) out.add(e);
+            return lastId < evictedUpTo;
+        }
+
+        private volatile long lastSubscribedAt = System.currentTimeMillis();
+
+        synchronized boolean isStale() {
+            StreamEvent last = recent.peekLast();
+            long lastActivity = Math.max(lastSubscribedAt, last == null ? 0 : last.createdAt);
+            return System.currentTimeMillis() - lastActivity > timeoutMillis;
+        }
+    }
+
+    private final class Connection {
+        final UserChannel channel;
+        final SseEmitter emitter;
+        final BlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean draining = new AtomicBoolean();
+        // when the send in progress started, NOT_SENDING, or STALLED once closeIfStalled gave up on it
+        final AtomicLong sendStartedAt = new AtomicLong(NOT_SENDING);
+        volatile boolean closed;
+
+        Connection(UserChannel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) return;
+            if (!buffer.offer(event)) {
+                // slow consumer: drop the connection, the client resumes from Last-Event-ID
+                log.debug("sse: send buffer full, closing connection");
+                closed = true;
+                channel.connections.remove(this);
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) dispatcher.execute(this::drain);
+        }
+
+        private void drain() {
+            boolean stalled = false;
+            try {
+                SseEmitter.SseEventBuilder next;
+                while (!closed && (next = buffer.poll()) != null) {
+                    sendStartedAt.set(System.currentTimeMillis());
+                    try {
+                        emitter.send(next);
+                    } finally {
+                        stalled = sendStartedAt.getAndSet(NOT_SENDING) == STALLED;
+                    }
+                }
+                if (stalled) emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+                channel.connections.remove(this);
+                emitter.completeWithError(e);
+                buffer.clear();
+            } finally {
+                // the replacement closeIfStalled started is no longer needed
+                if (stalled) resizeDispatcher(-1);
+                draining.set(false);
+            }
+            // an event may have been queued after the last poll but before draining was reset
+            if (!closed && !buffer.isEmpty() && draining.compareAndSet(false, true)) dispatcher.execute(this::drain);
+        }
+
+        // Runs on the scheduler. The emitter is left to the blocked thread (completing it here would
+        // wait on the same write); the connection just stops taking events.
+        void closeIfStalled(long now) {
+            long started = sendStartedAt.get();
+            if (started <= NOT_SENDING || now - started < writeTimeoutMillis) return;
+            if (!sendStartedAt.compareAndSet(started, STALLED)) return;
+            log.debug("sse: send blocked for over {} ms, closing connection", writeTimeoutMillis);
+            closed = true;
+            channel.connections.remove(this);
+            buffer.clear();
+            resizeDispatcher(1);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.backend.service;
+
+import com.example.backend.controller.FileController;
+import com.example.backend.model.Assignment;
+import com.example.backend.model.OutboxEvent;
+import com.example.backend.model.StudentQuery;
+import com.example.backend.repository.AssignmentRepository;
+import com.example.backend.repository.EnrollmentRepository;
+import com.example.backend.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox in the background. Each event is claimed and handled in its own transaction;
+ * a failed event is retried with exponential backoff until app.outbox.max-attempts, after which
+ * it is marked failed and left for inspection.
+ */
+@Component
+public class OutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxWorker.class);
+
+    // one statement per chunk of students; RETURNING hands back the new row ids for the push events
+    private static final String INSERT_NOTIFICATIONS_SQL =
+            "INSERT INTO student_queries (student_id, teacher_id, message, kind, created_at) " +
+            "SELECT s, ?, ?, ?, ? FROM unnest(?::bigint[]) AS s RETURNING id, student_id";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationStreamService notificationStream;
+    private final int maxAttempts;
+    private final int maxEventsPerPoll;
+    private final int batchSize;
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter processed;
+    private final Counter retried;
+    private final Counter failed;
+
+    public OutboxWorker(OutboxEventRepository outboxEventRepository,
+                        AssignmentRepository assignmentRepository,
+                        EnrollmentRepository enrollmentRepository,
+                        JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        NotificationStreamService notificationStream,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                        @Value("${app.outbox.max-events-per-poll:100}") int maxEventsPerPoll,
+                        @Value("${app.outbox.batch-size:500}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.notificationStream = notificationStream;
+        this.maxAttempts = maxAttempts;
+        this.maxEventsPerPoll = maxEventsPerPoll;
+        this.batchSize = batchSize;
+
+        Gauge.builder("outbox.lag", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest unprocessed outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending", pending, AtomicLong::get)
+                .description("Unprocessed outbox events")
+                .register(meterRegistry);
+        this.processed = Counter.builder("outbox.events").tag("outcome", "processed").register(meterRegistry);
+        this.retried = Counter.builder("outbox.events").tag("outcome", "retried").register(meterRegistry);
+        this.failed = Counter.builder("outbox.events").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void drain() {
+        for (int i = 0; i < maxEventsPerPoll; i++) {
+            Long[] claimed = new Long[1];
+            try {
+                Boolean handled = transactionTemplate.execute(status -> {
+                    OutboxEvent event = outboxEventRepository.lockNextDue(LocalDateTime.now()).orElse(null);
+                    if (event == null) return false;
+                    claimed[0] = event.getId();
+                    handle(event);
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setProcessedAt(LocalDateTime.now());
+                    event.setLastError(null);
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(handled)) break;
+                processed.increment();
+            } catch (Exception e) {
+                if (claimed[0] == null) {
+                    log.error("outbox: failed to claim next event", e);
+                    break;
+                }
+                recordFailure(claimed[0], e);
+            }
+        }
+        refreshLag();
+    }
+
+    private void handle(OutboxEvent event) {
+        if (OutboxEvent.ASSIGNMENT_POSTED.equals(event.getType())) {
+            notifyAssignmentPosted(event.getAggregateId());
+        } else {
+            throw new IllegalStateException("unknown outbox event type " + event.getType());
+        }
+    }
+
+    // One notification per enrolled student, inserted in chunks of app.outbox.batch-size.
+    private void notifyAssignmentPosted(Long assignmentId) {
+        Assignment a = assignmentRepository.findById(assignmentId).orElse(null);
+        if (a == null || a.getTeacher() == null) {
+            log.info("outbox: assignment {} no longer exists or has no teacher, nothing to notify", assignmentId);
+            return;
+        }
+        Long teacherId = a.getTeacher().getId();
+        List<Long> studentIds = enrollmentRepository.findStudentIdsByTeacherAndSubject(teacherId, a.getSubjectId());
+        String message = "New assignment posted: " + a.getTitle();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Long> notificationIds = new HashMap<>(studentIds.size() * 2);
+        for (int from = 0; from < studentIds.size(); from += batchSize) {
+            Long[] chunk = studentIds.subList(from, Math.min(from + batchSize, studentIds.size())).toArray(new Long[0]);
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(INSERT_NOTIFICATIONS_SQL);
+                ps.setLong(1, teacherId);
+                ps.setString(2, message);
+                ps.setString(3, StudentQuery.KIND_ASSIGNMENT_POSTED);
+                ps.setTimestamp(4, Timestamp.valueOf(now));
+                ps.setArray(5, con.createArrayOf("bigint", chunk));
+                return ps;
+            }, (RowCallbackHandler) rs -> notificationIds.put(rs.getLong("student_id"), rs.getLong("id")));
+        }
+
+        // Pushed to open dashboards once this transaction commits. The event carries the new
+        // assignment and notification rows, so a dashboard can show them without re-fetching.
+        Map<String, Object> assignment = new HashMap<>();
+        assignment.put("assignmentId", a.getId());
+        assignment.put("title", a.getTitle());
+        assignment.put("description", a.getDescription());
+        assignment.put("subjectId", a.getSubjectId());
+        assignment.put("fileName", a.getFileName());
+        assignment.put("downloadUrl", FileController.downloadUrl(a.getFileHash(), a.getFileName()));
+        assignment.put("createdAt", a.getCreatedAt().toString());
+        assignment.put("message", message);
+        assignment.put("date", now.toLocalDate().toString());
+        for (Long studentId : studentIds) {
+            Map<String, Object> event = new HashMap<>(assignment);
+            event.put("notificationId", String.valueOf(notificationIds.get(studentId)));
+            notificationStream.publish(NotificationStreamService.studentKey(studentId), "assignment-posted", event);
+        }
+        log.info("outbox: assignment {} notified {} students", assignmentId, studentIds.size());
+    }
+
+    private void recordFailure(Long eventId, Exception cause) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(eventId).ifPresent(event -> {
+                int attempts = event.getAttempts() + 1;
+                event.setAttempts(attempts);
+                String msg = String.valueOf(cause.getMessage());
+                event.setLastError(msg.length() > 2000 ? msg.substring(0, 2000) : msg);
+                if (attempts >= maxAttempts) {
+                    event.setFailed(true);
+                    failed.increment();
+                    log.error("outbox: event {} ({}) failed permanently after {} attempts", eventId, event.getType(), attempts, cause);
+                } else {
+                    // 2, 4, 8 ... seconds, capped at five minutes
+                    long delay = Math.min(1L << Math.min(attempts, 20), 300L);
+                    event.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofSeconds(delay)));
+                    retried.increment();
+                    log.warn("outbox: event {} ({}) attempt {} failed, retrying in {}s: {}", eventId, event.getType(), attempts, delay, cause.toString());
+                }
+            }));
+        } catch (Exception e) {
+            log.error("outbox: could not record failure of event {}", eventId, e);
+        }
+    }
+
+    private void refreshLag() {
+        try {
+            LocalDateTime oldest = outboxEventRepository.findOldestPendingCreatedAt();
+            lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).getSeconds()));
+            pending.set(outboxEventRepository.countPending());
+        } catch (Exception e) {
+            log.warn("outbox: could not refresh lag metrics", e);
+        }
+    }
+}
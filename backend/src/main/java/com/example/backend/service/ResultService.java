@@ -0,0 +1,165 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.ResultRepository;
+import com.example.backend.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Service
+public class ResultService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO results (student_id, subject_id, semester, marks, max_marks) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (student_id, subject_id, semester) " +
+            "DO UPDATE SET marks = EXCLUDED.marks, max_marks = EXCLUDED.max_marks";
+
+    private final ResultRepository resultRepository;
+    private final StudentRepository studentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ResultService(ResultRepository resultRepository, StudentRepository studentRepository, JdbcTemplate jdbcTemplate) {
+        this.resultRepository = resultRepository;
+        this.studentRepository = studentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Upserts one semester of marks for a subject, keyed on (student, subject, semester), in a
+     * single transaction. Existing marks are read in one query so each row can be classified as
+     * inserted, updated or skipped (unknown student or unchanged marks); only inserts and updates
+     * are sent, as JDBC batches of INSERT ... ON CONFLICT DO UPDATE.
+     */
+    @Transactional
+    public UpsertResult upsertSemester(String subjectId, String semester, Map<Long, Marks> marksByStudentId) {
+        long start = System.nanoTime();
+        UpsertResult result = new UpsertResult();
+        if (marksByStudentId.isEmpty()) return result;
+
+        Set<Long> known = new HashSet<>(studentRepository.findExistingIds(marksByStudentId.keySet()));
+        result.skipped = marksByStudentId.size() - known.size();
+        if (known.isEmpty()) return result;
+
+        Map<Long, ResultRepository.MarksRow> existing = new HashMap<>();
+        for (ResultRepository.MarksRow row : resultRepository.findMarks(subjectId, semester, known)) {
+            existing.put(row.getStudentId(), row);
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, Marks> e : marksByStudentId.entrySet()) {
+            if (!known.contains(e.getKey())) continue;
+            Marks m = e.getValue();
+            ResultRepository.MarksRow current = existing.get(e.getKey());
+            if (current == null) {
+                result.inserted++;
+            } else if (Objects.equals(current.getMarks(), m.marks) && Objects.equals(current.getMaxMarks(), m.maxMarks)) {
+                result.skipped++;
+                continue;
+            } else {
+                result.updated++;
+            }
+            batch.add(new Object[]{e.getKey(), subjectId, semester, m.marks, m.maxMarks});
+        }
+
+        for (int i = 0; i < batch.size(); i += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch.subList(i, Math.min(i + BATCH_SIZE, batch.size())));
+        }
+
+        log.info("upserted results subjectId={} semester={} inserted={} updated={} skipped={} in {} ms",
+                subjectId, semester, result.inserted, result.updated, result.skipped, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Gradebook statistics for one teacher's class in a subject, per semester. Two queries: the
+     * aggregates (ordered-set percentiles included) and the histogram buckets, both computed in
+     * PostgreSQL over percentage scores.
+     */
+    @Transactional(readOnly = true)
+    public Gradebook gradebook(Long teacherId, String subjectId, double passMark, int bins) {
+        Gradebook gradebook = new Gradebook();
+        gradebook.subjectId = subjectId;
+        gradebook.passMark = passMark;
+        gradebook.bins = bins;
+
+        Map<String, SemesterStats> bySemester = new LinkedHashMap<>();
+        for (ResultRepository.SemesterStatsRow r : resultRepository.semesterStats(teacherId, subjectId, passMark)) {
+            SemesterStats st = new SemesterStats();
+            st.semester = r.getSemester();
+            st.students = r.getStudents() == null ? 0 : r.getStudents();
+            st.mean = r.getMean();
+            st.stddev = r.getStddev();
+            st.min = r.getMin();
+            st.max = r.getMax();
+            st.p25 = r.getP25();
+            st.median = r.getMedian();
+            st.p75 = r.getP75();
+            st.p90 = r.getP90();
+            st.passRate = r.getPassRate();
+            st.histogram = new long[bins];
+            bySemester.put(r.getSemester(), st);
+            gradebook.semesters.add(st);
+        }
+        for (ResultRepository.HistogramRow h : resultRepository.histogram(teacherId, subjectId, bins)) {
+            SemesterStats st = bySemester.get(h.getSemester());
+            if (st != null && h.getBucket() != null) st.histogram[h.getBucket() - 1] = h.getStudents();
+        }
+        return gradebook;
+    }
+
+    public static class Marks {
+        public final Integer marks;
+        public final Integer maxMarks;
+
+        public Marks(Integer marks, Integer maxMarks) {
+            this.marks = marks;
+            this.maxMarks = maxMarks;
+        }
+    }
+
+    public static class Gradebook {
+        public String subjectId;
+        public double passMark;
+        // histogram buckets split 0-100% into this many equal ranges
+        public int bins;
+        public List<SemesterStats> semesters = new ArrayList<>();
+    }
+
+    public static class SemesterStats {
+        public String semester;
+        public long students;
+        public Double mean;
+        public Double stddev;
+        public Double min;
+        public Double max;
+        public Double p25;
+        public Double median;
+        public Double p75;
+        public Double p90;
+        // fraction of students at or above the pass mark
+        public Double passRate;
+        // student counts per bucket, lowest scores first
+        public long[] histogram;
+    }
+
+    public static class UpsertResult {
+        public int inserted;
+        public int updated;
+        public int skipped;
+    }
+}
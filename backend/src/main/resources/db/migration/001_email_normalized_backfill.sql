@@ -0,0 +1,23 @@
+-- Backfill email_normalized (whitespace stripped, lower-cased; mirrors Emails.normalize) for
+-- teachers and students written before the column existed. Where several rows collapse to the
+-- same normalized address only the lowest id is filled, so the unique constraint holds.
+
+UPDATE teachers t
+SET email_normalized = n.norm
+FROM (SELECT DISTINCT ON (lower(regexp_replace(email, '\s+', '', 'g')))
+             id, lower(regexp_replace(email, '\s+', '', 'g')) AS norm
+      FROM teachers
+      ORDER BY lower(regexp_replace(email, '\s+', '', 'g')), id) n
+WHERE t.id = n.id
+  AND t.email_normalized IS NULL
+  AND NOT EXISTS (SELECT 1 FROM teachers o WHERE o.email_normalized = n.norm);
+
+UPDATE students s
+SET email_normalized = n.norm
+FROM (SELECT DISTINCT ON (lower(regexp_replace(email, '\s+', '', 'g')))
+             id, lower(regexp_replace(email, '\s+', '', 'g')) AS norm
+      FROM students
+      ORDER BY lower(regexp_replace(email, '\s+', '', 'g')), id) n
+WHERE s.id = n.id
+  AND s.email_normalized IS NULL
+  AND NOT EXISTS (SELECT 1 FROM students o WHERE o.email_normalized = n.norm);
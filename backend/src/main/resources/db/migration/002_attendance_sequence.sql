@@ -0,0 +1,5 @@
+-- attendance ids come from attendance_seq (allocation size 50) so inserts can be JDBC-batched.
+-- Move the sequence past every id handed out by the old identity column, and never backwards.
+SELECT setval('attendance_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM attendance),
+                       (SELECT last_value FROM attendance_seq)));
@@ -0,0 +1,16 @@
+-- One result per (student, subject, semester). Collapse rows duplicated by earlier re-submissions,
+-- keeping the newest, then add the unique index that ResultService's ON CONFLICT upsert targets.
+-- Once the index exists there is nothing left to collapse, so the self-join only runs before that.
+DELETE FROM results r
+USING results newer
+WHERE newer.student_id = r.student_id
+  AND newer.subject_id IS NOT DISTINCT FROM r.subject_id
+  AND newer.semester IS NOT DISTINCT FROM r.semester
+  AND newer.id > r.id
+  AND NOT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'uk_results_student_subject_semester');
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_results_student_subject_semester
+    ON results (student_id, subject_id, semester);
+
+-- superseded by the unique index above
+DROP INDEX IF EXISTS idx_results_student_subject_semester;
@@ -0,0 +1,4 @@
+-- Partial index so the outbox worker's claim query only touches unprocessed events.
+CREATE INDEX IF NOT EXISTS idx_outbox_events_due
+    ON outbox_events (next_attempt_at, id)
+    WHERE processed_at IS NULL AND failed = false;
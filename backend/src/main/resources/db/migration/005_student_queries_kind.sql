@@ -0,0 +1,5 @@
+-- Classify rows written before student_queries.kind existed: assignment-posted notifications were
+-- created with a fixed message prefix, everything else is a student's question.
+UPDATE student_queries
+SET kind = CASE WHEN message LIKE 'New assignment posted: %' THEN 'ASSIGNMENT_POSTED' ELSE 'QUERY' END
+WHERE kind IS NULL;
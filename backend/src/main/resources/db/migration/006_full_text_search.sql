@@ -0,0 +1,16 @@
+-- Full-text search. The tsvector columns are generated by PostgreSQL from the text they index,
+-- so every insert/update keeps them current without application code; title/message rank above
+-- description/reply. Not mapped in the entities, so Hibernate leaves them alone.
+ALTER TABLE student_queries ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(message, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(reply, '')), 'B')
+    ) STORED;
+CREATE INDEX IF NOT EXISTS idx_student_queries_search ON student_queries USING GIN (search_vector);
+
+ALTER TABLE assignments ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) STORED;
+CREATE INDEX IF NOT EXISTS idx_assignments_search ON assignments USING GIN (search_vector);
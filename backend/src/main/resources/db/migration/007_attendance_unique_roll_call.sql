@@ -0,0 +1,49 @@
+-- One attendance row per (student, subject, date); the unique index is the backstop for two
+-- concurrent roll calls that both pass AttendanceService's duplicate check. Hibernate only adds
+-- uk_attendance_student_subject_date when no duplicates exist, so collapse rows duplicated by
+-- earlier double submissions first, keeping the newest. Each DELETE only runs while its index is
+-- missing. This runs before 008_attendance_summary_backfill, so a first-time backfill counts the
+-- deduplicated rows; a summary filled earlier has the deleted rows subtracted from it.
+WITH deleted AS (
+    DELETE FROM attendance a
+    USING attendance newer
+    WHERE newer.student_id = a.student_id
+      AND newer.subject_id = a.subject_id
+      AND newer.date = a.date
+      AND newer.id > a.id
+      AND to_regclass('uk_attendance_student_subject_date') IS NULL
+    RETURNING a.*
+)
+UPDATE attendance_summary s SET present = s.present - d.present, total = s.total - d.total
+FROM (SELECT student_id, coalesce(subject_id, '') AS subject_id, coalesce(teacher_id, 0) AS teacher_id,
+             count(*) FILTER (WHERE present) AS present, count(*) AS total
+      FROM deleted GROUP BY 1, 2, 3) d
+WHERE s.student_id = d.student_id AND s.subject_id = d.subject_id AND s.teacher_id = d.teacher_id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_attendance_student_subject_date
+    ON attendance (student_id, subject_id, date);
+
+-- NULLs are distinct in the index above, so rows without a subject (legacy sample data) get their
+-- own partial index; it keeps the partition key (date) as partitioned unique indexes require.
+WITH deleted AS (
+    DELETE FROM attendance a
+    USING attendance newer
+    WHERE newer.student_id = a.student_id
+      AND newer.subject_id IS NULL
+      AND a.subject_id IS NULL
+      AND newer.date = a.date
+      AND newer.id > a.id
+      AND to_regclass('uk_attendance_student_date_no_subject') IS NULL
+    RETURNING a.*
+)
+UPDATE attendance_summary s SET present = s.present - d.present, total = s.total - d.total
+FROM (SELECT student_id, coalesce(teacher_id, 0) AS teacher_id,
+             count(*) FILTER (WHERE present) AS present, count(*) AS total
+      FROM deleted GROUP BY 1, 2) d
+WHERE s.student_id = d.student_id AND s.subject_id = '' AND s.teacher_id = d.teacher_id;
+
+-- a duplicate recorded under another teacher than the row kept leaves that teacher's totals empty
+DELETE FROM attendance_summary WHERE total <= 0;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_attendance_student_date_no_subject
+    ON attendance (student_id, date) WHERE subject_id IS NULL;
@@ -0,0 +1,8 @@
+-- First-time fill of attendance_summary from the raw rows. Only runs while the table is empty;
+-- afterwards AttendanceService maintains it and AttendanceSummaryRebuildJob reconciles drift.
+INSERT INTO attendance_summary (student_id, subject_id, teacher_id, present, total)
+SELECT student_id, coalesce(subject_id, ''), coalesce(teacher_id, 0), count(*) FILTER (WHERE present), count(*)
+FROM attendance
+WHERE student_id IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM attendance_summary)
+GROUP BY student_id, coalesce(subject_id, ''), coalesce(teacher_id, 0);
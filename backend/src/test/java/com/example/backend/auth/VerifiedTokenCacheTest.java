@@ -0,0 +1,100 @@
+package com.example.backend.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VerifiedTokenCacheTest {
+
+    /** Counts calls and can be told to fail as if the verifier's keys were unreachable. */
+    static class CountingVerifier implements TokenVerifier {
+        final TokenVerifier delegate;
+        final AtomicInteger calls = new AtomicInteger();
+        int unavailableFor;
+
+        CountingVerifier(TokenVerifier delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public VerifiedToken verify(String idToken) throws InvalidTokenException, TokenVerificationUnavailableException {
+            calls.incrementAndGet();
+            if (unavailableFor > 0) {
+                unavailableFor--;
+                throw new TokenVerificationUnavailableException("certificate fetch failed", null);
+            }
+            return delegate.verify(idToken);
+        }
+    }
+
+    private static VerifiedTokenCache cache(TokenVerifier verifier) {
+        return new VerifiedTokenCache(verifier, new SimpleMeterRegistry(), 100, 3600, 100, 60);
+    }
+
+    @Test
+    void verifiedTokenIsServedFromCache() throws Exception {
+        CountingVerifier verifier = new CountingVerifier(new LocalTokenVerifier(3600));
+        VerifiedTokenCache cache = cache(verifier);
+
+        VerifiedToken first = cache.verify("local:alice@example.com");
+        VerifiedToken second = cache.verify("local:alice@example.com");
+
+        assertThat(first.getEmail()).isEqualTo("alice@example.com");
+        assertThat(second).isSameAs(first);
+        assertThat(verifier.calls).hasValue(1);
+    }
+
+    @Test
+    void rejectedTokenIsRememberedBriefly() throws Exception {
+        CountingVerifier verifier = new CountingVerifier(new LocalTokenVerifier(3600));
+        VerifiedTokenCache cache = cache(verifier);
+
+        assertThat(cache.verify("not-a-token")).isNull();
+        assertThat(cache.verify("not-a-token")).isNull();
+
+        assertThat(verifier.calls).hasValue(1);
+    }
+
+    @Test
+    void unavailableVerifierIsNotCachedAsRejection() throws Exception {
+        CountingVerifier verifier = new CountingVerifier(new LocalTokenVerifier(3600));
+        verifier.unavailableFor = 1;
+        VerifiedTokenCache cache = cache(verifier);
+
+        assertThatThrownBy(() -> cache.verify("local:bob@example.com"))
+                .isInstanceOf(TokenVerificationUnavailableException.class);
+        VerifiedToken retried = cache.verify("local:bob@example.com");
+
+        assertThat(retried).isNotNull();
+        assertThat(retried.getEmail()).isEqualTo("bob@example.com");
+        assertThat(verifier.calls).hasValue(2);
+    }
+
+    @Test
+    void tokenWithoutLifetimeLeftIsNotCached() throws Exception {
+        CountingVerifier verifier = new CountingVerifier(new LocalTokenVerifier(0));
+        VerifiedTokenCache cache = cache(verifier);
+
+        cache.verify("local:carol@example.com");
+        cache.verify("local:carol@example.com");
+
+        assertThat(verifier.calls).hasValue(2);
+    }
+
+    @Test
+    void differentTokensAreCachedSeparately() throws Exception {
+        CountingVerifier verifier = new CountingVerifier(new LocalTokenVerifier(3600));
+        VerifiedTokenCache cache = cache(verifier);
+
+        assertThat(cache.verify("local:alice@example.com").getEmail()).isEqualTo("alice@example.com");
+        assertThat(cache.verify("local:bob@example.com").getEmail()).isEqualTo("bob@example.com");
+        assertThat(cache.verify("not-a-token")).isNull();
+        assertThat(cache.verify("local:alice@example.com").getEmail()).isEqualTo("alice@example.com");
+
+        assertThat(verifier.calls).hasValue(3);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.backend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesTest {
+
+    private final ReadYourWrites interceptor = new ReadYourWrites(Duration.ofMinutes(1), 100);
+
+    @AfterEach
+    void clear() {
+        interceptor.afterConcurrentHandlingStarted(new MockHttpServletRequest(), new MockHttpServletResponse(), null);
+    }
+
+    private static MockHttpServletRequest request(String method, String studentEmail) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/student/assignments");
+        request.setParameter("studentEmail", studentEmail);
+        return request;
+    }
+
+    private void write(String studentEmail) {
+        MockHttpServletRequest post = request("POST", studentEmail);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(post, response, null);
+        interceptor.afterCompletion(post, response, null, null);
+    }
+
+    private void read(String studentEmail) {
+        MockHttpServletRequest get = request("GET", studentEmail);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(get, response, null);
+        interceptor.afterCompletion(get, response, null, null);
+    }
+
+    @Test
+    void readAfterOwnWriteRequiresPrimary() {
+        write("alice@example.com");
+
+        interceptor.preHandle(request("GET", "Alice@Example.com"), new MockHttpServletResponse(), null);
+
+        assertThat(ReadYourWrites.isPrimaryRequired()).isTrue();
+    }
+
+    @Test
+    void otherUsersReadFromReplica() {
+        write("alice@example.com");
+
+        interceptor.preHandle(request("GET", "bob@example.com"), new MockHttpServletResponse(), null);
+
+        assertThat(ReadYourWrites.isPrimaryRequired()).isFalse();
+    }
+
+    @Test
+    void flagIsClearedWhenRequestGoesAsync() {
+        write("alice@example.com");
+        MockHttpServletRequest get = request("GET", "alice@example.com");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(get, response, null);
+
+        interceptor.afterConcurrentHandlingStarted(get, response, null);
+
+        // the pooled request thread must not carry the flag into its next request
+        assertThat(ReadYourWrites.isPrimaryRequired()).isFalse();
+    }
+
+    @Test
+    void writerIsMarkedBeforeTheWriteCompletes() {
+        // the response can reach the client before afterCompletion runs
+        interceptor.preHandle(request("POST", "carol@example.com"), new MockHttpServletResponse(), null);
+        interceptor.afterConcurrentHandlingStarted(new MockHttpServletRequest(), new MockHttpServletResponse(), null);
+
+        interceptor.preHandle(request("GET", "carol@example.com"), new MockHttpServletResponse(), null);
+
+        assertThat(ReadYourWrites.isPrimaryRequired()).isTrue();
+    }
+
+    @Test
+    void readsDoNotPinReads() {
+        read("dave@example.com");
+
+        interceptor.preHandle(request("GET", "dave@example.com"), new MockHttpServletResponse(), null);
+
+        assertThat(ReadYourWrites.isPrimaryRequired()).isFalse();
+    }
+}
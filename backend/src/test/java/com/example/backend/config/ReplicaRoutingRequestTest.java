@@ -0,0 +1,115 @@
+package com.example.backend.config;
+
+import com.example.backend.model.Assignment;
+import com.example.backend.model.Student;
+import com.example.backend.model.Teacher;
+import com.example.backend.repository.AssignmentRepository;
+import com.example.backend.repository.StudentRepository;
+import com.example.backend.repository.TeacherRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Replica routing across a whole request. The "replica" is the same embedded database reached
+ * through sessions that are read-only by default, so a write routed to it fails instead of
+ * silently landing in the right place.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReplicaRoutingRequestTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) throws IOException {
+        if (postgres == null) postgres = EmbeddedPostgres.start();
+        String url = postgres.getJdbcUrl("postgres", "postgres");
+        String uploads = Files.createTempDirectory("uploads").toString();
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("app.datasource.replica.url", () -> url + "&options=-c%20default_transaction_read_only%3Don");
+        registry.add("app.auth.verifier", () -> "local");
+        registry.add("app.upload.dir", () -> uploads);
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        if (postgres != null) postgres.close();
+    }
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TeacherRepository teacherRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @BeforeEach
+    void replicaInUse() {
+        lagMonitor.check();
+        assertThat(lagMonitor.isReplicaUsable()).isTrue();
+    }
+
+    @Test
+    void readOnlyTransactionsRunOnTheReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // only replica sessions have the session default set (a read-only transaction alone does not)
+        String onReplica = readOnly.execute(status -> jdbcTemplate.queryForObject("show default_transaction_read_only", String.class));
+        String onPrimary = new TransactionTemplate(transactionManager)
+                .execute(status -> jdbcTemplate.queryForObject("show default_transaction_read_only", String.class));
+
+        assertThat(onReplica).isEqualTo("on");
+        assertThat(onPrimary).isEqualTo("off");
+    }
+
+    @Test
+    void writeAfterReadInOneRequestGoesToThePrimary() throws Exception {
+        Teacher teacher = teacherRepository.save(new Teacher("Routing Teacher", "routing-teacher@example.com"));
+        studentRepository.save(new Student("Routing Student", "routing-student@example.com"));
+        Assignment assignment = new Assignment();
+        assignment.setTitle("Routing");
+        assignment.setSubjectId("ROUTE-1");
+        assignment.setTeacher(teacher);
+        assignment = assignmentRepository.save(assignment);
+
+        // findById and the duplicate check run read-only on the replica, then the submission is saved
+        mvc.perform(multipart("/api/student/assignments/submit")
+                        .param("assignmentId", String.valueOf(assignment.getId()))
+                        .param("studentEmail", "routing-student@example.com")
+                        .param("submissionNotes", "done"))
+                .andExpect(status().isOk());
+
+        Integer saved = jdbcTemplate.queryForObject(
+                "select count(*) from assignment_submissions where assignment_id = ?", Integer.class, assignment.getId());
+        assertThat(saved).isEqualTo(1);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Runs the partition job against a real PostgreSQL, starting from the table Hibernate creates. */
+class AttendancePartitionJobTest {
+
+    // unpartitioned, as Hibernate creates it; without the unique constraint, as when existing
+    // duplicates kept Hibernate from adding it
+    private static final String HIBERNATE_SCHEMA =
+            "CREATE TABLE teachers (id bigint PRIMARY KEY, name varchar(255), email varchar(255));" +
+            "CREATE TABLE students (id bigint PRIMARY KEY, name varchar(255), email varchar(255));" +
+            "CREATE TABLE attendance_summary (student_id bigint NOT NULL, subject_id varchar(255) NOT NULL, " +
+            "  teacher_id bigint NOT NULL, present bigint NOT NULL, total bigint NOT NULL, " +
+            "  PRIMARY KEY (student_id, subject_id, teacher_id));" +
+            "CREATE TABLE attendance (id bigint NOT NULL, date date, present boolean NOT NULL, student_id bigint, " +
+            "  subject_id varchar(255), teacher_id bigint, CONSTRAINT attendance_pkey PRIMARY KEY (id), " +
+            "  FOREIGN KEY (student_id) REFERENCES students (id), FOREIGN KEY (teacher_id) REFERENCES teachers (id));" +
+            "INSERT INTO teachers VALUES (1, 'T', 't@example.com');" +
+            "INSERT INTO students VALUES (1, 'A', 'a@example.com'), (2, 'B', 'b@example.com')";
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbc;
+
+    @TempDir
+    Path archiveDir;
+
+    @BeforeAll
+    static void start() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void schema() {
+        jdbc.execute("DROP SCHEMA public CASCADE");
+        jdbc.execute("CREATE SCHEMA public");
+        jdbc.execute(HIBERNATE_SCHEMA);
+    }
+
+    private AttendancePartitionJob job(int retentionMonths) {
+        return new AttendancePartitionJob(dataSource, jdbc, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                new SimpleMeterRegistry(), 1, retentionMonths, archiveDir.toString());
+    }
+
+    private static void attendance(long id, String date, long studentId, String subjectId, boolean present) {
+        jdbc.update("INSERT INTO attendance VALUES (?, ?::date, ?, ?, ?, 1)", id, date, present, studentId, subjectId);
+    }
+
+    private static String relkind(String table) {
+        return jdbc.queryForObject("SELECT coalesce((SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)), '')", String.class, table);
+    }
+
+    private static long count(String sql, Object... args) {
+        return jdbc.queryForObject(sql, Long.class, args);
+    }
+
+    @Test
+    void convertsAndKeepsNewestOfDuplicates() {
+        attendance(1, "2024-01-08", 1, "MATH", false);
+        attendance(2, "2024-01-08", 1, "MATH", true);   // duplicate roll call, newer
+        attendance(3, "2024-01-08", 2, null, true);
+        attendance(4, "2024-01-08", 2, null, false);    // duplicate without a subject, newer
+        attendance(5, "2024-02-12", 2, "MATH", true);
+
+        job(0).afterSingletonsInstantiated();
+
+        assertThat(relkind("attendance")).isEqualTo("p");
+        assertThat(relkind("attendance_p202401")).isEqualTo("r");
+        assertThat(relkind("attendance_p202402")).isEqualTo("r");
+        assertThat(relkind(AttendancePartitionJob.partitionName(YearMonth.now().plusMonths(1)))).isEqualTo("r");
+        assertThat(jdbc.queryForList("SELECT id FROM attendance ORDER BY id", Long.class)).containsExactly(2L, 4L, 5L);
+        // the rows the unique keys rejected are kept for inspection
+        assertThat(jdbc.queryForList("SELECT id FROM attendance_unpartitioned ORDER BY id", Long.class)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void concurrentStartupsConvertOnce() {
+        attendance(1, "2024-01-08", 1, "MATH", true);
+        attendance(2, "2024-03-04", 2, "MATH", false);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> job(0).afterSingletonsInstantiated());
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> job(0).afterSingletonsInstantiated());
+        CompletableFuture.allOf(first, second).join();
+
+        assertThat(relkind("attendance")).isEqualTo("p");
+        assertThat(relkind("attendance_unpartitioned")).isEmpty();
+        assertThat(count("SELECT count(*) FROM attendance")).isEqualTo(2);
+    }
+
+    @Test
+    void maintenanceMovesDefaultRowsIntoTheirOwnPartition() {
+        AttendancePartitionJob job = job(0);
+        job.afterSingletonsInstantiated();
+        attendance(10, "2031-05-20", 1, "MATH", true);
+        assertThat(count("SELECT count(*) FROM " + AttendancePartitionJob.DEFAULT_PARTITION)).isEqualTo(1);
+
+        job.maintain();
+
+        assertThat(count("SELECT count(*) FROM " + AttendancePartitionJob.DEFAULT_PARTITION)).isZero();
+        assertThat(count("SELECT count(*) FROM attendance_p203105")).isEqualTo(1);
+        assertThat(count("SELECT count(*) FROM attendance WHERE id = 10")).isEqualTo(1);
+    }
+
+    @Test
+    void archivesOldMonthsAndSubtractsThemFromTheSummary() throws IOException {
+        String recent = YearMonth.now().atDay(1).toString();
+        attendance(1, "2024-01-08", 1, "MATH", true);
+        attendance(2, "2024-01-15", 1, "MATH", false);
+        attendance(3, recent, 1, "MATH", true);
+        jdbc.update("INSERT INTO attendance_summary VALUES (1, 'MATH', 1, 2, 3)");
+        AttendancePartitionJob job = job(12);
+        job.afterSingletonsInstantiated();
+
+        job.maintain();
+
+        assertThat(relkind("attendance_p202401")).isEmpty();
+        assertThat(jdbc.queryForList("SELECT id FROM attendance", Long.class)).containsExactly(3L);
+        assertThat(jdbc.queryForMap("SELECT present, total FROM attendance_summary WHERE student_id = 1"))
+                .containsEntry("present", 1L).containsEntry("total", 1L);
+        Path archive = archiveDir.resolve("attendance_p202401.csv.gz");
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+            List<String> lines = in.lines().toList();
+            assertThat(lines).hasSize(3);
+            assertThat(lines.get(0)).isEqualTo("id,date,present,student_id,subject_id,teacher_id");
+            assertThat(lines.get(1)).startsWith("1,2024-01-08,t,1,MATH");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bench;
+
+import com.example.backend.App;
+import com.example.backend.controller.StudentController;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load test for the student endpoints' identity fallback: requests with no principal and no
+ * id/email parameters act for the first student. This grows the students table step by step
+ * and, at each size, runs the same number of such anonymous calls, reporting the bytes allocated
+ * per call and the heap still in use after a full GC. Both should stay flat as the table grows;
+ * a fallback that loads the whole table (as findAll() did) allocates in proportion to it and, at
+ * the larger sizes, runs a small heap out of memory.
+ *
+ * <p>Uses its own throwaway embedded PostgreSQL, so it does not disturb the seeded benchmark
+ * database:
+ * {@code mvn -f benchmarks exec:exec -Dbench.main=com.example.bench.AnonymousFallbackHeapTest -Dbench.jvmArgs="-Xmx512m"}.
+ * Optional system properties: load.student-steps (default 1000,100000,1000000), load.calls per
+ * step (default 20000), load.threads (default 8) and load.max-growth, the largest allowed ratio of
+ * bytes per call between the biggest and the smallest step (default 1.5). Exits with status 1 when
+ * the ratio is exceeded.
+ */
+public class AnonymousFallbackHeapTest {
+
+    private static final int WARMUP_CALLS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int[] steps = Arrays.stream(System.getProperty("load.student-steps", "1000,100000,1000000").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).sorted().toArray();
+        int calls = Integer.getInteger("load.calls", 20_000);
+        int threads = Integer.getInteger("load.threads", 8);
+        double maxGrowth = Double.parseDouble(System.getProperty("load.max-growth", "1.5"));
+
+        double[] bytesPerCall = new double[steps.length];
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class)
+                     .web(WebApplicationType.NONE)
+                     .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                             "--spring.datasource.username=postgres",
+                             "--spring.datasource.password=",
+                             "--app.auth.verifier=local",
+                             "--app.upload.dir=target/bench-uploads",
+                             "--logging.level.root=WARN")) {
+            StudentController controller = context.getBean(StudentController.class);
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+            int students = 0;
+            System.out.printf("%12s %16s %16s%n", "students", "bytes/call", "heap after GC");
+            for (int s = 0; s < steps.length; s++) {
+                jdbc.update("insert into students (name, email, email_normalized) " +
+                        "select 'Heap Student ' || g, 'heap' || g || '@bench.local', 'heap' || g || '@bench.local' " +
+                        "from generate_series(?, ?) g", students, steps[s] - 1);
+                students = steps[s];
+                jdbc.execute("analyze students");
+
+                run(controller, WARMUP_CALLS, threads);
+                bytesPerCall[s] = run(controller, calls, threads) / (double) calls;
+                System.gc();
+                System.gc();
+                long heapUsed = memory.getHeapMemoryUsage().getUsed();
+                System.out.printf(Locale.ROOT, "%12d %16.0f %13.1f MB%n", students, bytesPerCall[s], heapUsed / 1e6);
+            }
+        }
+
+        double growth = bytesPerCall[steps.length - 1] / bytesPerCall[0];
+        System.out.printf(Locale.ROOT, "bytes/call growth from %d to %d students: %.2fx (limit %.2fx)%n",
+                steps[0], steps[steps.length - 1], growth, maxGrowth);
+        if (growth > maxGrowth) System.exit(1);
+    }
+
+    // Makes the anonymous dashboard calls on a pool of threads; returns the bytes they allocated.
+    private static long run(StudentController controller, int calls, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int share = calls / threads + (t < calls % threads ? 1 : 0);
+                results.add(pool.submit(() -> {
+                    com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                    long before = mx.getCurrentThreadAllocatedBytes();
+                    for (int i = 0; i < share; i++) {
+                        switch (i % 4) {
+                            case 0 -> controller.getAttendance(null, null, null, null, null, null, null);
+                            case 1 -> controller.getAssignments(null, null, null, null, null);
+                            case 2 -> controller.getResults(null, null, null, null, null, null);
+                            default -> controller.notifications(null, null);
+                        }
+                    }
+                    return mx.getCurrentThreadAllocatedBytes() - before;
+                }));
+            }
+            long allocated = 0;
+            for (Future<Long> f : results) allocated += f.get();
+            return allocated;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
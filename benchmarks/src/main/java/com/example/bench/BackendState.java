@@ -0,0 +1,54 @@
+package com.example.bench;
+
+import com.example.backend.App;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application context under test, started once per fork against the embedded PostgreSQL and
+ * seeded on first use. No web server: benchmarks call the controller beans directly, so the
+ * numbers cover the controller, repositories and database but not HTTP and JSON encoding.
+ */
+@State(Scope.Benchmark)
+public class BackendState {
+
+    public final DataSeeder.Scale scale = new DataSeeder.Scale();
+
+    public ConfigurableApplicationContext context;
+    private EmbeddedDatabase database;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        database = EmbeddedDatabase.start(scale);
+        // command-line arguments, so they override the backend's application.properties
+        context = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + database.jdbcUrl(),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--app.auth.verifier=local",
+                        "--app.upload.dir=target/bench-uploads",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.bench=INFO");
+        if (!database.isSeeded()) {
+            new DataSeeder(scale, context).seed();
+            database.markSeeded();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        if (context != null) context.close();
+        if (database != null) database.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
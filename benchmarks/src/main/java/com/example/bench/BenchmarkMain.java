@@ -0,0 +1,22 @@
+package com.example.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point for the benchmark run: JMH's own command line, defaulting to JSON results in
+ * target/jmh-result.json so runs on different commits can be compared (e.g. with jmh.morethan.io
+ * or a diff of the "primaryMetric" scores). Any JMH option given explicitly wins.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        List<String> argv = new ArrayList<>();
+        List<String> given = Arrays.asList(args);
+        if (!given.contains("-rf")) argv.addAll(List.of("-rf", "json"));
+        if (!given.contains("-rff")) argv.addAll(List.of("-rff", "target/jmh-result.json"));
+        argv.addAll(given);
+        org.openjdk.jmh.Main.main(argv.toArray(new String[0]));
+    }
+}
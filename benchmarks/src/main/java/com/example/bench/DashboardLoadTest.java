@@ -0,0 +1,177 @@
+package com.example.bench;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-model HTTP load test of the student dashboard: each simulated user loads attendance,
+ * assignments and results back to back, pauses, and repeats. Meant to compare server
+ * configurations, e.g. platform threads vs spring.threads.virtual.enabled=true, on the same data.
+ *
+ * <p>Run the backend with app.auth.verifier=local (requests authenticate as
+ * "local:student&lt;n&gt;@school.test") and the "generate" profile's dataset, then:
+ * {@code DashboardLoadTest <baseUrl> <users> <seconds> <label>}. Users start over a ramp of a
+ * quarter of the run (at most 30 s) that is not measured. Latency percentiles per endpoint and
+ * overall are printed and written to target/load-&lt;label&gt;.json. Optional system properties:
+ * load.think-ms (default 500), load.students (default 5000), load.seed (default 1).
+ *
+ * <p>Comparing p99 at 2,000 users: run it once against a backend with platform threads and once
+ * with spring.threads.virtual.enabled=true (Java 21+; the connection limit then turns on by
+ * default), with the same dataset, users, duration and seed. Then compare the "overall" p99Ms in
+ * target/load-platform.json and target/load-virtual.json. No numbers are checked in. They depend
+ * on the host, and this harness is the deliverable.
+ */
+public class DashboardLoadTest {
+
+    private static final String[] ENDPOINTS = {"/api/student/attendance", "/api/student/assignments", "/api/student/results"};
+    private static final int USERS_PER_CLIENT = 100;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("usage: DashboardLoadTest <baseUrl> <users> <seconds> <label>");
+            System.exit(2);
+        }
+        String baseUrl = args[0];
+        int users = Integer.parseInt(args[1]);
+        int seconds = Integer.parseInt(args[2]);
+        String label = args[3];
+        long thinkMs = Long.getLong("load.think-ms", 500);
+        int students = Integer.getInteger("load.students", 5000);
+        long seed = Long.getLong("load.seed", 1);
+
+        long rampNanos = Duration.ofSeconds(Math.min(30, seconds / 4)).toNanos();
+        long start = System.nanoTime();
+        long measureFrom = start + rampNanos;
+        long end = measureFrom + Duration.ofSeconds(seconds).toNanos();
+
+        // several clients so one selector thread does not serve thousands of connections
+        List<HttpClient> clients = new ArrayList<>();
+        for (int i = 0; i < (users + USERS_PER_CLIENT - 1) / USERS_PER_CLIENT; i++) {
+            clients.add(HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build());
+        }
+
+        Latencies[] perEndpoint = new Latencies[ENDPOINTS.length];
+        for (int e = 0; e < ENDPOINTS.length; e++) perEndpoint[e] = new Latencies();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(users);
+        Random seeds = new Random(seed);
+
+        for (int u = 0; u < users; u++) {
+            HttpClient client = clients.get(u / USERS_PER_CLIENT);
+            Random random = new Random(seeds.nextLong());
+            long startAt = start + rampNanos * u / users;
+            Thread thread = new Thread(() -> {
+                try {
+                    sleepUntil(startAt);
+                    while (System.nanoTime() < end) {
+                        String token = "local:student" + random.nextInt(students) + "@school.test";
+                        for (int e = 0; e < ENDPOINTS.length; e++) {
+                            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ENDPOINTS[e]))
+                                    .header("Authorization", "Bearer " + token)
+                                    .timeout(Duration.ofSeconds(60))
+                                    .GET().build();
+                            long t0 = System.nanoTime();
+                            boolean ok;
+                            try {
+                                ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                            } catch (IOException ex) {
+                                ok = false;
+                            }
+                            long t1 = System.nanoTime();
+                            if (t0 >= measureFrom && t1 <= end) {
+                                if (ok) perEndpoint[e].add(t1 - t0);
+                                else errors.incrementAndGet();
+                            }
+                        }
+                        Thread.sleep(thinkMs);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "load-user-" + u);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        Map<String, String> report = new LinkedHashMap<>();
+        report.put("label", quote(label));
+        report.put("users", String.valueOf(users));
+        report.put("seconds", String.valueOf(seconds));
+        report.put("thinkMs", String.valueOf(thinkMs));
+        report.put("errors", String.valueOf(errors.get()));
+        Latencies all = new Latencies();
+        StringBuilder endpoints = new StringBuilder("{");
+        for (int e = 0; e < ENDPOINTS.length; e++) {
+            all.addAll(perEndpoint[e]);
+            if (e > 0) endpoints.append(", ");
+            endpoints.append(quote(ENDPOINTS[e])).append(": ").append(perEndpoint[e].summary(seconds));
+            System.out.printf("%-28s %s%n", ENDPOINTS[e], perEndpoint[e].summary(seconds));
+        }
+        report.put("endpoints", endpoints.append('}').toString());
+        report.put("overall", all.summary(seconds));
+        System.out.printf("%-28s %s%nerrors: %d%n", "overall", all.summary(seconds), errors.get());
+
+        StringBuilder json = new StringBuilder("{\n");
+        report.forEach((k, v) -> json.append("  ").append(quote(k)).append(": ").append(v).append(",\n"));
+        json.setLength(json.length() - 2);
+        Path out = Path.of("target", "load-" + label + ".json");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, json.append("\n}\n").toString());
+        System.out.println("written to " + out);
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long wait = nanoTime - System.nanoTime();
+        if (wait > 0) Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /** Response times in nanoseconds; synchronized adds are cheap next to an HTTP round trip. */
+    private static final class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void add(long nanos) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+        }
+
+        synchronized void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) add(other.values[i]);
+        }
+
+        synchronized String summary(int seconds) {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return String.format(Locale.ROOT, "{\"requests\": %d, \"perSecond\": %.1f, \"p50Ms\": %.2f, \"p90Ms\": %.2f, \"p99Ms\": %.2f, \"maxMs\": %.2f}",
+                    size, size / (double) seconds, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                    percentile(sorted, 0.99), size == 0 ? 0.0 : sorted[size - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.bench;
+
+import com.example.backend.model.*;
+import com.example.backend.repository.*;
+import com.example.backend.service.AttendancePartitionJob;
+import com.example.backend.service.AttendanceSummaryRebuildJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds a realistic, deterministic dataset through the application's own repositories: teachers
+ * each teaching one subject, students enrolled in {@link #SUBJECTS_PER_STUDENT} classes, daily
+ * attendance, two semesters of results, assignments with submissions and student queries. Rows
+ * are written in chunks, one transaction per chunk, so the persistence context stays small.
+ */
+public class DataSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
+    public static final int SUBJECTS_PER_STUDENT = 5;
+    public static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 8);
+
+    private static final int CHUNK = 5000;
+    private static final int ASSIGNMENTS_PER_TEACHER = 20;
+
+    /** Dataset size, read from -Dbench.* system properties (JMH forks inherit the host's JVM args). */
+    public static class Scale {
+        public final int students = Integer.getInteger("bench.students", 10_000);
+        public final int teachers = Integer.getInteger("bench.teachers", 200);
+        public final int attendance = Integer.getInteger("bench.attendance", 1_000_000);
+        public final int queries = Integer.getInteger("bench.queries", 100_000);
+
+        public String key() {
+            return students + "-" + teachers + "-" + attendance + "-" + queries;
+        }
+    }
+
+    public static String studentEmail(int i) {
+        return "student" + i + "@bench.local";
+    }
+
+    public static String teacherEmail(int t) {
+        return "teacher" + t + "@bench.local";
+    }
+
+    public static String subjectOf(int t) {
+        return String.format("SUBJ-%03d", t);
+    }
+
+    /** Teacher index of the k-th class of student i. */
+    public static int teacherOf(Scale scale, int student, int k) {
+        return (student + k * (scale.teachers / SUBJECTS_PER_STUDENT)) % scale.teachers;
+    }
+
+    private final Scale scale;
+    private final TransactionTemplate tx;
+    private final StudentRepository studentRepository;
+    private final TeacherRepository teacherRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final ResultRepository resultRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentSubmissionRepository submissionRepository;
+    private final StudentQueryRepository queryRepository;
+    private final AttendanceSummaryRebuildJob attendanceSummaryRebuildJob;
+    private final AttendancePartitionJob attendancePartitionJob;
+    private final Random random = new Random(42);
+
+    public DataSeeder(Scale scale, ApplicationContext context) {
+        this.scale = scale;
+        this.tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        this.studentRepository = context.getBean(StudentRepository.class);
+        this.teacherRepository = context.getBean(TeacherRepository.class);
+        this.enrollmentRepository = context.getBean(EnrollmentRepository.class);
+        this.attendanceRepository = context.getBean(AttendanceRepository.class);
+        this.resultRepository = context.getBean(ResultRepository.class);
+        this.assignmentRepository = context.getBean(AssignmentRepository.class);
+        this.submissionRepository = context.getBean(AssignmentSubmissionRepository.class);
+        this.queryRepository = context.getBean(StudentQueryRepository.class);
+        this.attendanceSummaryRebuildJob = context.getBean(AttendanceSummaryRebuildJob.class);
+        this.attendancePartitionJob = context.getBean(AttendancePartitionJob.class);
+    }
+
+    public void seed() {
+        long start = System.nanoTime();
+        if (scale.teachers < SUBJECTS_PER_STUDENT) throw new IllegalArgumentException("bench.teachers must be >= " + SUBJECTS_PER_STUDENT);
+
+        List<Teacher> teachers = new ArrayList<>();
+        for (int t = 0; t < scale.teachers; t++) teachers.add(new Teacher("Teacher " + t, teacherEmail(t)));
+        teachers = saveInChunks(teacherRepository, teachers);
+
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < scale.students; i++) {
+            Student s = new Student("Student " + i, studentEmail(i));
+            s.setTeacher(teachers.get(teacherOf(scale, i, 0)));
+            s.setSubject(subjectOf(teacherOf(scale, i, 0)));
+            students.add(s);
+        }
+        students = saveInChunks(studentRepository, students);
+        log.info("seeded {} teachers, {} students", teachers.size(), students.size());
+
+        List<Enrollment> enrollments = new ArrayList<>();
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < students.size(); i++) {
+            for (int k = 0; k < SUBJECTS_PER_STUDENT; k++) {
+                int t = teacherOf(scale, i, k);
+                Enrollment e = new Enrollment();
+                e.setStudent(students.get(i));
+                e.setTeacher(teachers.get(t));
+                e.setSubjectId(subjectOf(t));
+                enrollments.add(e);
+                for (String semester : List.of("1", "2")) {
+                    Result r = new Result();
+                    r.setStudent(students.get(i));
+                    r.setSubjectId(subjectOf(t));
+                    r.setSemester(semester);
+                    r.setMarks(20 + random.nextInt(81));
+                    r.setMaxMarks(100);
+                    results.add(r);
+                }
+            }
+        }
+        saveInChunks(enrollmentRepository, enrollments);
+        saveInChunks(resultRepository, results);
+        log.info("seeded {} enrollments, {} results", enrollments.size(), results.size());
+
+        // one roll call per class per day, until the requested row count is reached; the monthly
+        // attendance partitions for those days exist first, as they would in production
+        int days = (int) Math.ceil(scale.attendance / (double) (students.size() * SUBJECTS_PER_STUDENT));
+        attendancePartitionJob.ensureRange(FIRST_DAY, FIRST_DAY.plusDays(days));
+        List<Attendance> chunk = new ArrayList<>(CHUNK);
+        int written = 0;
+        for (int day = 0; written < scale.attendance; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            for (int i = 0; i < students.size() && written < scale.attendance; i++) {
+                for (int k = 0; k < SUBJECTS_PER_STUDENT && written < scale.attendance; k++) {
+                    int t = teacherOf(scale, i, k);
+                    Attendance a = new Attendance();
+                    a.setStudent(students.get(i));
+                    a.setTeacher(teachers.get(t));
+                    a.setSubjectId(subjectOf(t));
+                    a.setDate(date);
+                    a.setPresent(random.nextInt(10) != 0);
+                    chunk.add(a);
+                    written++;
+                    if (chunk.size() == CHUNK) {
+                        saveInChunks(attendanceRepository, chunk);
+                        chunk = new ArrayList<>(CHUNK);
+                    }
+                }
+            }
+            if (day % 5 == 0) log.info("seeded {} attendance rows", written);
+        }
+        saveInChunks(attendanceRepository, chunk);
+        attendanceSummaryRebuildJob.rebuild();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<List<Assignment>> assignmentsByTeacher = new ArrayList<>();
+        for (int t = 0; t < teachers.size(); t++) {
+            List<Assignment> list = new ArrayList<>();
+            for (int n = 0; n < ASSIGNMENTS_PER_TEACHER; n++) {
+                Assignment a = new Assignment();
+                a.setTeacher(teachers.get(t));
+                a.setSubjectId(subjectOf(t));
+                a.setTitle(subjectOf(t) + " assignment " + n);
+                a.setDescription("Exercises for week " + n + " of " + subjectOf(t));
+                a.setCreatedAt(now.minusDays(7L * (ASSIGNMENTS_PER_TEACHER - n)));
+                a.setDueDate(a.getCreatedAt().plusDays(7));
+                list.add(a);
+            }
+            assignmentsByTeacher.add(saveInChunks(assignmentRepository, list));
+        }
+
+        // every student has handed in all but the latest assignment of one class
+        List<AssignmentSubmission> submissions = new ArrayList<>();
+        for (int i = 0; i < students.size(); i++) {
+            List<Assignment> list = assignmentsByTeacher.get(teacherOf(scale, i, 0));
+            for (int n = 0; n < list.size() - 1; n++) {
+                AssignmentSubmission s = new AssignmentSubmission();
+                s.setStudent(students.get(i));
+                s.setAssignment(list.get(n));
+                s.setSubmissionNotes("done");
+                s.setSubmittedAt(list.get(n).getCreatedAt().plusDays(1 + random.nextInt(6)));
+                submissions.add(s);
+            }
+        }
+        saveInChunks(submissionRepository, submissions);
+        log.info("seeded {} assignments, {} submissions", teachers.size() * ASSIGNMENTS_PER_TEACHER, submissions.size());
+
+        List<StudentQuery> queries = new ArrayList<>(CHUNK);
+        for (int q = 0; q < scale.queries; q++) {
+            int i = random.nextInt(students.size());
+            StudentQuery query = new StudentQuery();
+            query.setStudent(students.get(i));
+            query.setTeacher(teachers.get(teacherOf(scale, i, random.nextInt(SUBJECTS_PER_STUDENT))));
+            query.setMessage("Question " + q + ": could you explain the exercise from last week's lecture again?");
+            if (random.nextInt(10) < 6) query.setReply("See the worked example in the notes, section " + random.nextInt(12));
+            query.setCreatedAt(now.minusMinutes(random.nextInt(180 * 24 * 60)));
+            queries.add(query);
+            if (queries.size() == CHUNK) {
+                saveInChunks(queryRepository, queries);
+                queries = new ArrayList<>(CHUNK);
+            }
+        }
+        saveInChunks(queryRepository, queries);
+        log.info("seeded {} queries; dataset {} ready in {}s", scale.queries, scale.key(), (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    private <T> List<T> saveInChunks(JpaRepository<T, Long> repository, List<T> rows) {
+        List<T> saved = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += CHUNK) {
+            List<T> slice = rows.subList(from, Math.min(rows.size(), from + CHUNK));
+            saved.addAll(tx.execute(status -> repository.saveAll(slice)));
+        }
+        return saved;
+    }
+}
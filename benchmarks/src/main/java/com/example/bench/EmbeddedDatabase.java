@@ -0,0 +1,66 @@
+package com.example.bench;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A local PostgreSQL started from the binaries bundled with zonky embedded-postgres. The data
+ * directory survives between runs so the (slow) seeding happens once per dataset scale; a marker
+ * file written after a successful seed decides whether the directory can be reused.
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+
+    private static final Path DATA_DIR = Path.of("target", "bench-pgdata");
+
+    private final EmbeddedPostgres postgres;
+    private final Path seedMarker;
+    private final boolean seeded;
+
+    private EmbeddedDatabase(EmbeddedPostgres postgres, Path seedMarker, boolean seeded) {
+        this.postgres = postgres;
+        this.seedMarker = seedMarker;
+        this.seeded = seeded;
+    }
+
+    /** Starts the server, wiping the data directory unless it was fully seeded at {@code scale}. */
+    public static EmbeddedDatabase start(DataSeeder.Scale scale) throws IOException {
+        Path marker = DATA_DIR.resolve(".seeded-" + scale.key());
+        boolean seeded = Files.exists(marker);
+        if (!seeded) deleteRecursively(DATA_DIR); // initdb runs again on an empty directory
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setDataDirectory(DATA_DIR)
+                .setCleanDataDirectory(false)
+                .setServerConfig("max_connections", "50")
+                .start();
+        return new EmbeddedDatabase(postgres, marker, seeded);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    public String jdbcUrl() {
+        return postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public void markSeeded() throws IOException {
+        Files.createFile(seedMarker);
+    }
+
+    @Override
+    public void close() throws IOException {
+        postgres.close();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bench;
+
+import com.example.backend.auth.VerifiedToken;
+import com.example.backend.controller.StudentController;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The student dashboard reads, each for a random seeded student resolved from a verified token
+ * the way the auth filter would hand it to the controller.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class StudentPathsBenchmark {
+
+    @State(Scope.Thread)
+    public static class Caller {
+        StudentController controller;
+        int students;
+        private final Random random = new Random(7);
+
+        @Setup(Level.Trial)
+        public void setup(BackendState backend) {
+            controller = backend.bean(StudentController.class);
+            students = backend.scale.students;
+        }
+
+        VerifiedToken nextStudent() {
+            String email = DataSeeder.studentEmail(random.nextInt(students));
+            return new VerifiedToken("bench-" + email, email, Map.of(), Instant.MAX);
+        }
+    }
+
+    @Benchmark
+    public List<StudentController.AttendanceDto> getAttendance(Caller c) {
+        return c.controller.getAttendance(null, null, null, null, null, null, c.nextStudent()).getBody();
+    }
+
+    /** A date range bypasses attendance_summary and aggregates the raw rows. */
+    @Benchmark
+    public List<StudentController.AttendanceDto> getAttendanceForRange(Caller c) {
+        LocalDate from = DataSeeder.FIRST_DAY;
+        return c.controller.getAttendance(null, null, null, null, from, from.plusDays(30), c.nextStudent()).getBody();
+    }
+
+    @Benchmark
+    public List<StudentController.AssignmentDto> getAssignments(Caller c) {
+        return c.controller.getAssignments(null, null, null, null, c.nextStudent()).getBody();
+    }
+
+    @Benchmark
+    public List<StudentController.ResultDto> getResults(Caller c) {
+        return c.controller.getResults(null, null, null, null, null, c.nextStudent()).getBody();
+    }
+}
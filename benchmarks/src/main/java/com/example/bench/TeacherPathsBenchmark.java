@@ -0,0 +1,108 @@
+package com.example.bench;
+
+import com.example.backend.controller.TeacherController;
+import com.example.backend.repository.EnrollmentRepository;
+import com.example.backend.service.AttendanceSummaryRebuildJob;
+import com.example.backend.service.IdentityService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The teacher dashboard: the first page of notifications (student queries) and a whole-class roll
+ * call, the bulk write path (validation, duplicate check, batched inserts, summary upserts).
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class TeacherPathsBenchmark {
+
+    @State(Scope.Thread)
+    public static class Caller {
+        TeacherController controller;
+        int teachers;
+        private final Random random = new Random(11);
+
+        @Setup(Level.Trial)
+        public void setup(BackendState backend) {
+            controller = backend.bean(TeacherController.class);
+            teachers = backend.scale.teachers;
+        }
+
+        String nextTeacherEmail() {
+            return DataSeeder.teacherEmail(random.nextInt(teachers));
+        }
+    }
+
+    /**
+     * Roll calls go to days after the seeded range, one fresh (subject, date) per invocation so no
+     * call hits the duplicate check. The rows are removed again after the trial so the persistent
+     * dataset does not grow from run to run.
+     */
+    @State(Scope.Benchmark)
+    public static class RollCalls {
+        static final LocalDate FIRST_DAY = LocalDate.of(2100, 1, 1);
+
+        List<List<TeacherController.AttendanceSubmit.Att>> classes;
+        final AtomicInteger next = new AtomicInteger();
+        private BackendState backend;
+
+        @Setup(Level.Trial)
+        public void setup(BackendState backend) {
+            this.backend = backend;
+            deleteRollCalls();
+            IdentityService identityService = backend.bean(IdentityService.class);
+            EnrollmentRepository enrollmentRepository = backend.bean(EnrollmentRepository.class);
+            Random random = new Random(13);
+            classes = new ArrayList<>();
+            for (int t = 0; t < backend.scale.teachers; t++) {
+                Long teacherId = identityService.teacher(DataSeeder.teacherEmail(t)).orElseThrow().id;
+                List<TeacherController.AttendanceSubmit.Att> roll = new ArrayList<>();
+                for (Long studentId : enrollmentRepository.findStudentIdsByTeacherAndSubject(teacherId, DataSeeder.subjectOf(t))) {
+                    TeacherController.AttendanceSubmit.Att a = new TeacherController.AttendanceSubmit.Att();
+                    a.id = studentId;
+                    a.present = random.nextInt(10) != 0;
+                    roll.add(a);
+                }
+                classes.add(roll);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            deleteRollCalls();
+        }
+
+        private void deleteRollCalls() {
+            int deleted = backend.bean(JdbcTemplate.class).update("DELETE FROM attendance WHERE date >= ?", FIRST_DAY);
+            if (deleted > 0) backend.bean(AttendanceSummaryRebuildJob.class).rebuild();
+        }
+    }
+
+    @Benchmark
+    public Object notifications(Caller c) {
+        return c.controller.notifications(c.nextTeacherEmail(), null, null, null).getBody();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object submitAttendance(Caller c, RollCalls rollCalls) {
+        int n = rollCalls.next.getAndIncrement();
+        int t = n % c.teachers;
+        TeacherController.AttendanceSubmit body = new TeacherController.AttendanceSubmit();
+        body.date = RollCalls.FIRST_DAY.plusDays(n / c.teachers).toString();
+        body.attendance = rollCalls.classes.get(t);
+        ResponseEntity<?> response = c.controller.submitAttendance(DataSeeder.teacherEmail(t), DataSeeder.subjectOf(t), body);
+        if (!response.getStatusCode().is2xxSuccessful()) throw new IllegalStateException("roll call failed: " + response);
+        return response.getBody();
+    }
+}
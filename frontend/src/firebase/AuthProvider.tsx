@@ -1,6 +1,7 @@
 import React, { createContext, useContext, useEffect, useState } from "react";
 import { initializeApp } from "firebase/app";
 import { getAuth, onAuthStateChanged, signOut } from "firebase/auth";
+import axios from "axios";
 import type { User } from "firebase/auth";
 import firebaseConfig, { isFirebaseConfigured } from "./firebaseConfig";
 
@@ -21,6 +22,17 @@ if (isFirebaseConfigured) {
   console.warn("Firebase client config appears missing or incomplete. Auth features are disabled.");
 }
 
+// Send the signed-in user's ID token with every API call so the backend can identify the caller
+// from the verified token. getIdToken() returns a cached token and only refreshes it near expiry.
+axios.interceptors.request.use(async (config) => {
+  const current = auth?.currentUser;
+  if (current && config.url?.startsWith("/api")) {
+    const token = await current.getIdToken();
+    config.headers.set("Authorization", `Bearer ${token}`);
+  }
+  return config;
+});
+
 const AuthContext = createContext<
   { user: User | null; logout: () => Promise<void> } | undefined
 >(undefined);
@@ -0,0 +1,50 @@
+// src/notificationStream.ts
+import type { User } from "firebase/auth";
+
+type Handlers = Record<string, (data: any) => void>;
+
+const REOPEN_DELAY_MS = 5000;
+
+// Opens the signed-in user's notification stream (Server-Sent Events) and passes each event's JSON
+// payload to the handler for its type. EventSource cannot send an Authorization header, so the ID
+// token goes in the query string. The browser reconnects by itself (resending Last-Event-ID); if
+// the server refuses the stream instead, e.g. once the token has expired, it is reopened with a
+// fresh token and the last event id seen, so nothing is missed. Returns a function that closes it.
+export function openNotificationStream(path: string, user: User, handlers: Handlers): () => void {
+  let source: EventSource | null = null;
+  let lastEventId: string | null = null;
+  let closed = false;
+  let reopen: ReturnType<typeof setTimeout> | undefined;
+
+  const open = async () => {
+    const token = await user.getIdToken();
+    if (closed) return;
+    const params = new URLSearchParams({ access_token: token });
+    if (lastEventId) params.set("lastEventId", lastEventId);
+    const current = new EventSource(`${path}?${params.toString()}`);
+    source = current;
+    for (const [type, handler] of Object.entries(handlers)) {
+      current.addEventListener(type, (e) => {
+        const message = e as MessageEvent<string>;
+        if (message.lastEventId) lastEventId = message.lastEventId;
+        try {
+          handler(message.data ? JSON.parse(message.data) : {});
+        } catch (err) {
+          console.error(`Error handling ${type} event:`, err);
+        }
+      });
+    }
+    current.onerror = () => {
+      if (current.readyState === EventSource.CLOSED && !closed) {
+        reopen = setTimeout(() => open().catch((err) => console.error("Error reopening notification stream:", err)), REOPEN_DELAY_MS);
+      }
+    };
+  };
+
+  open().catch((err) => console.error("Error opening notification stream:", err));
+  return () => {
+    closed = true;
+    clearTimeout(reopen);
+    source?.close();
+  };
+}
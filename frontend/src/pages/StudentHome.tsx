@@ -3,6 +3,9 @@ import React, { useEffect, useState } from "react";
 import { Link } from "react-router-dom";
 import axios from "axios";
 import { useAuth } from "../firebase/AuthProvider";
+import { appendPage, fetchPage, refreshFirstPage } from "../paging";
+import type { Page } from "../paging";
+import { openNotificationStream } from "../notificationStream";
 
 interface Notification {
   id: string;
@@ -17,15 +20,32 @@ interface Assignment {
   description: string;
   subjectId: string;
   filePath?: string;
+  fileName?: string;
+  downloadUrl?: string;
   createdAt: string;
   submitted: boolean;
   submissionNotes?: string;
   submittedAt?: string;
 }
 
+// payload of the "assignment-posted" stream event
+interface AssignmentPostedEvent {
+  assignmentId: number;
+  notificationId: string;
+  title: string;
+  description: string;
+  subjectId: string;
+  fileName?: string | null;
+  downloadUrl?: string | null;
+  createdAt: string;
+  message: string;
+  date: string;
+}
+
 const StudentHome: React.FC = () => {
   const [notifications, setNotifications] = useState<Notification[]>([]);
-  const [assignments, setAssignments] = useState<Assignment[]>([]);
+  const [assignmentPage, setAssignmentPage] = useState<Page<Assignment>>({ items: [], nextCursor: null });
+  const [loadingMore, setLoadingMore] = useState(false);
   const { user } = useAuth();
 
   const fetchNotifications = async () => {
@@ -78,25 +98,44 @@ const StudentHome: React.FC = () => {
     }
   };
 
+  const assignmentsUrl = (email: string) =>
+    `/api/student/assignments?studentEmail=${encodeURIComponent(email)}`;
+
+  // filter out dismissed assignments stored in localStorage
+  const withoutDismissed = (page: Page<Assignment>): Page<Assignment> => {
+    const dismissed = JSON.parse(localStorage.getItem("dismissedAssignments") || "[]") as number[];
+    return { ...page, items: page.items.filter((a) => !dismissed.includes(a.id)) };
+  };
+
+  // Assignments come newest first, one page at a time; older pages load on demand.
   const fetchAssignments = async () => {
     try {
       const email = user?.email;
       if (!email) return;
       
       console.log('Fetching assignments for student:', email);
-      const res = await axios.get(`/api/student/assignments?studentEmail=${encodeURIComponent(email)}`);
-      console.log('Assignments response:', res.data);
-      
-      if (Array.isArray(res.data)) {
-        // filter out dismissed assignments stored in localStorage
-        const dismissed = JSON.parse(localStorage.getItem("dismissedAssignments" ) || "[]") as number[];
-        setAssignments(res.data.filter((a: Assignment) => !dismissed.includes(a.id)));
-      }
+      const first = withoutDismissed(await fetchPage<Assignment>(assignmentsUrl(email)));
+      console.log('Assignments response:', first.items);
+      setAssignmentPage((prev) => refreshFirstPage(prev, first));
     } catch (err) {
       console.error('Error fetching assignments:', err);
     }
   };
 
+  const loadMoreAssignments = async () => {
+    const email = user?.email;
+    if (!email || !assignmentPage.nextCursor) return;
+    setLoadingMore(true);
+    try {
+      const next = withoutDismissed(await fetchPage<Assignment>(assignmentsUrl(email), assignmentPage.nextCursor));
+      setAssignmentPage((prev) => appendPage(prev, next));
+    } catch (err) {
+      console.error('Error fetching older assignments:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const dismissAssignment = (id: number) => {
     try {
       const dismissed = JSON.parse(localStorage.getItem("dismissedAssignments") || "[]") as number[];
@@ -104,23 +143,59 @@ const StudentHome: React.FC = () => {
         dismissed.push(id);
         localStorage.setItem("dismissedAssignments", JSON.stringify(dismissed));
       }
-      setAssignments((prev) => prev.filter((a) => a.id !== id));
+      setAssignmentPage((prev) => ({ ...prev, items: prev.items.filter((a) => a.id !== id) }));
     } catch (e) {
       console.error('Error dismissing assignment', e);
     }
   };
 
   useEffect(() => {
+    setAssignmentPage({ items: [], nextCursor: null });
     fetchNotifications();
     fetchAssignments();
-    
-    // Auto-refresh every 30 seconds to check for new replies and assignments
-    const interval = setInterval(() => {
-      fetchNotifications();
-      fetchAssignments();
-    }, 30000);
-    
-    return () => clearInterval(interval);
+
+    // Replies and new assignments are pushed over Server-Sent Events and applied to the lists in
+    // place; only a "resync" (events missed beyond the server's replay window) re-fetches.
+    if (!user?.email) return;
+    return openNotificationStream("/api/student/notifications/stream", user, {
+      reply: (e: { id: string; message: string; reply: string; date: string }) =>
+        setNotifications((prev) =>
+          prev.some((n) => n.id === e.id)
+            ? prev.map((n) => (n.id === e.id ? { ...n, reply: e.reply } : n))
+            : [...prev, { id: e.id, message: e.message, date: e.date, reply: e.reply }]
+        ),
+      "assignment-posted": (e: AssignmentPostedEvent) => {
+        setNotifications((prev) =>
+          prev.some((n) => n.id === e.notificationId)
+            ? prev
+            : [...prev, { id: e.notificationId, message: e.message, date: e.date }]
+        );
+        setAssignmentPage((prev) =>
+          prev.items.some((a) => a.id === e.assignmentId)
+            ? prev
+            : {
+                ...prev,
+                items: [
+                  {
+                    id: e.assignmentId,
+                    title: e.title,
+                    description: e.description,
+                    subjectId: e.subjectId,
+                    fileName: e.fileName ?? undefined,
+                    downloadUrl: e.downloadUrl ?? undefined,
+                    createdAt: e.createdAt,
+                    submitted: false,
+                  },
+                  ...prev.items,
+                ],
+              }
+        );
+      },
+      resync: () => {
+        fetchNotifications();
+        fetchAssignments();
+      },
+    });
   }, [user?.email]); // Re-fetch when user email changes
 
   return (
@@ -240,7 +315,7 @@ const StudentHome: React.FC = () => {
               </div>
 
               <div className="p-8">
-                {assignments.length === 0 ? (
+                {assignmentPage.items.length === 0 ? (
                   <div className="text-center py-12">
                     <div className="bg-gray-50 rounded-full w-20 h-20 mx-auto flex items-center justify-center mb-4">
                       <div className="w-10 h-10 bg-gray-200 rounded-full"></div>
@@ -254,7 +329,7 @@ const StudentHome: React.FC = () => {
                   </div>
                 ) : (
                   <div className="space-y-4">
-                    {assignments.map((assignment) => (
+                    {assignmentPage.items.map((assignment) => (
                       <div
                         key={assignment.id}
                         className="bg-gradient-to-r from-gray-50 to-emerald-50 p-6 rounded-xl border border-gray-100 hover:shadow-md transition-all duration-200"
@@ -299,6 +374,18 @@ const StudentHome: React.FC = () => {
                             <p className="text-gray-600 leading-relaxed mb-3">
                               {assignment.description}
                             </p>
+                            {assignment.downloadUrl && (
+                              <div className="mb-3">
+                                <a
+                                  href={assignment.downloadUrl}
+                                  target="_blank"
+                                  rel="noopener noreferrer"
+                                  className="text-sm text-emerald-700 underline hover:text-emerald-800"
+                                >
+                                  Download {assignment.fileName || 'assignment file'}
+                                </a>
+                              </div>
+                            )}
                             {assignment.submitted && assignment.submissionNotes && (
                               <div className="mt-3 p-3 bg-green-50 rounded-lg border border-green-200">
                                 <p className="text-sm text-green-700 font-medium mb-1">
@@ -326,6 +413,17 @@ const StudentHome: React.FC = () => {
                     ))}
                   </div>
                 )}
+                {assignmentPage.nextCursor && (
+                  <div className="mt-6 text-center">
+                    <button
+                      onClick={loadMoreAssignments}
+                      disabled={loadingMore}
+                      className="px-4 py-2 text-sm font-medium text-emerald-700 bg-emerald-50 border border-emerald-200 rounded-lg hover:bg-emerald-100 disabled:opacity-50 transition-colors duration-200"
+                    >
+                      {loadingMore ? 'Loading...' : 'Load older assignments'}
+                    </button>
+                  </div>
+                )}
               </div>
             </div>
           </div>
@@ -10,6 +10,14 @@ interface Student {
   present: boolean;
 }
 
+// running totals per student for the subject, from /attendance/summary
+interface ClassAttendance {
+  studentId: number;
+  studentName: string;
+  present: number;
+  total: number;
+}
+
 const TeacherAttendance = () => {
   const { user } = useAuth();
   const teacherEmail = user?.email || "";
@@ -17,6 +25,7 @@ const TeacherAttendance = () => {
   const [date, setDate] = useState(""); // yyyy-mm-dd
   const [students, setStudents] = useState<Student[]>([]);
   const [message, setMessage] = useState("");
+  const [summary, setSummary] = useState<ClassAttendance[] | null>(null);
 
   // Fetch students for a particular class and date
   const fetchStudents = async () => {
@@ -46,6 +55,26 @@ const TeacherAttendance = () => {
     }
   };
 
+  // Load the attendance totals of every student in the class for this subject
+  const fetchSummary = async () => {
+    if (!teacherEmail || !subjectId) {
+      setMessage("Please login and enter Subject ID.");
+      return;
+    }
+
+    try {
+      const res = await axios.get(
+        `/api/teacher/classes/${encodeURIComponent(
+          teacherEmail
+        )}/attendance/summary?subjectId=${encodeURIComponent(subjectId)}`
+      );
+      setSummary(Array.isArray(res.data) ? res.data : []);
+    } catch (err) {
+      console.error(err);
+      setMessage("Error fetching attendance totals.");
+    }
+  };
+
   // Toggle attendance for a student
   const handleToggle = (id: string) => {
     setStudents((prev) =>
@@ -74,6 +103,7 @@ const TeacherAttendance = () => {
         }
       );
       setMessage("Attendance submitted successfully!");
+      if (summary !== null) fetchSummary();
     } catch (err) {
       console.error(err);
       setMessage("Error submitting attendance.");
@@ -135,7 +165,10 @@ const TeacherAttendance = () => {
                     type="text"
                     placeholder="Enter subject id"
                     value={subjectId}
-                    onChange={(e) => setSubjectId(e.target.value)}
+                    onChange={(e) => {
+                      setSubjectId(e.target.value);
+                      setSummary(null);
+                    }}
                     className="w-full px-4 py-3 bg-white border border-gray-200 rounded-xl focus:outline-none focus:ring-2 focus:ring-indigo-500 focus:border-transparent transition-all duration-200"
                   />
                 </div>
@@ -157,8 +190,54 @@ const TeacherAttendance = () => {
               >
                 Fetch Students
               </button>
+              <button
+                onClick={fetchSummary}
+                className="ml-3 bg-white text-indigo-600 font-semibold px-6 py-3 rounded-xl border border-indigo-200 hover:bg-indigo-50 focus:outline-none focus:ring-2 focus:ring-indigo-500 focus:ring-offset-2 transition-all duration-200"
+              >
+                Attendance Totals
+              </button>
             </div>
 
+            {summary !== null && (
+              <div className="bg-white border border-gray-200 rounded-xl overflow-hidden mb-8">
+                <div className="bg-gradient-to-r from-gray-50 to-gray-100 px-6 py-4 border-b border-gray-200">
+                  <h4 className="font-semibold text-gray-700">
+                    Attendance Totals
+                  </h4>
+                </div>
+                {summary.length === 0 ? (
+                  <p className="p-4 text-gray-500">
+                    No attendance recorded for this subject yet.
+                  </p>
+                ) : (
+                  <table className="w-full text-left">
+                    <thead className="bg-gray-50 text-sm text-gray-600">
+                      <tr>
+                        <th className="px-6 py-3 font-semibold">Student</th>
+                        <th className="px-6 py-3 font-semibold text-right">Present</th>
+                        <th className="px-6 py-3 font-semibold text-right">Total</th>
+                        <th className="px-6 py-3 font-semibold text-right">Rate</th>
+                      </tr>
+                    </thead>
+                    <tbody className="divide-y divide-gray-100">
+                      {summary.map((row) => (
+                        <tr key={row.studentId} className="hover:bg-gray-50">
+                          <td className="px-6 py-3 font-medium text-gray-800">
+                            {row.studentName}
+                          </td>
+                          <td className="px-6 py-3 text-right text-gray-700">{row.present}</td>
+                          <td className="px-6 py-3 text-right text-gray-700">{row.total}</td>
+                          <td className="px-6 py-3 text-right text-gray-700">
+                            {row.total > 0 ? `${Math.round((row.present / row.total) * 100)}%` : "-"}
+                          </td>
+                        </tr>
+                      ))}
+                    </tbody>
+                  </table>
+                )}
+              </div>
+            )}
+
             {students.length > 0 && (
               <div className="space-y-6">
                 <div className="flex items-center justify-between p-4 bg-gradient-to-r from-indigo-50 to-purple-50 rounded-xl border border-indigo-200">
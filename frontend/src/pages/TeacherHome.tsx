@@ -3,6 +3,9 @@ import React, { useEffect, useState } from "react";
 import { Link } from "react-router-dom";
 import axios from "axios";
 import { useAuth } from "../firebase/AuthProvider";
+import { appendPage, fetchPage, refreshFirstPage } from "../paging";
+import type { Page } from "../paging";
+import { openNotificationStream } from "../notificationStream";
 
 interface QueryNotification {
   id: string;
@@ -20,29 +23,50 @@ interface AssignmentSubmission {
   submissionNotes?: string;
   submittedAt: string;
   filePath?: string;
+  fileName?: string;
+  downloadUrl?: string;
 }
 
 const TeacherHome: React.FC = () => {
-  const [notifications, setNotifications] = useState<QueryNotification[]>([]);
-  const [assignmentSubmissions, setAssignmentSubmissions] = useState<AssignmentSubmission[]>([]);
+  const [notificationPage, setNotificationPage] = useState<Page<QueryNotification>>({ items: [], nextCursor: null });
+  const [loadingMoreNotifications, setLoadingMoreNotifications] = useState(false);
+  const [submissionPage, setSubmissionPage] = useState<Page<AssignmentSubmission>>({ items: [], nextCursor: null });
+  const [loadingMoreSubmissions, setLoadingMoreSubmissions] = useState(false);
   const { user } = useAuth();
 
+  const notificationsUrl = () => {
+    const email = user?.email;
+    return email
+      ? `/api/teacher/notifications?teacherEmail=${encodeURIComponent(email)}`
+      : "/api/teacher/notifications";
+  };
+
+  // Notifications come newest first, one page at a time; older pages load on demand.
   const fetchNotifications = async () => {
     try {
-      const email = user?.email;
-      const url = email 
-        ? `/api/teacher/notifications?teacherEmail=${encodeURIComponent(email)}`
-        : "/api/teacher/notifications";
-      
+      const url = notificationsUrl();
       console.log('Fetching notifications from:', url);
-      const res = await axios.get(url);
-      console.log('Notifications response:', res.data);
-      setNotifications(res.data);
+      const first = await fetchPage<QueryNotification>(url);
+      console.log('Notifications response:', first.items);
+      setNotificationPage((prev) => refreshFirstPage(prev, first));
     } catch (err) {
       console.error('Error fetching notifications:', err);
     }
   };
 
+  const loadMoreNotifications = async () => {
+    if (!notificationPage.nextCursor) return;
+    setLoadingMoreNotifications(true);
+    try {
+      const next = await fetchPage<QueryNotification>(notificationsUrl(), notificationPage.nextCursor);
+      setNotificationPage((prev) => appendPage(prev, next));
+    } catch (err) {
+      console.error('Error fetching older notifications:', err);
+    } finally {
+      setLoadingMoreNotifications(false);
+    }
+  };
+
   const clearNotification = async (id: string) => {
     try {
       const email = user?.email;
@@ -53,41 +77,78 @@ const TeacherHome: React.FC = () => {
       console.log('Clearing notification:', id, 'from:', url);
       await axios.delete(url);
       console.log('Notification cleared successfully');
-      // Refresh notifications after clearing
-      await fetchNotifications();
+      // drop it locally; refetching would collapse pages loaded with "Load more"
+      setNotificationPage((prev) => ({ ...prev, items: prev.items.filter((n) => n.id !== id) }));
     } catch (err) {
       console.error('Error clearing notification:', err);
     }
   };
 
+  const submissionsUrl = (email: string) =>
+    `/api/teacher/assignments/submissions?teacherEmail=${encodeURIComponent(email)}`;
+
+  // Submissions come newest first, one page at a time; older pages load on demand and the
+  // periodic refresh only reloads the first page.
   const fetchAssignmentSubmissions = async () => {
     try {
       const email = user?.email;
       if (!email) return;
       
       console.log('Fetching assignment submissions for teacher:', email);
-      const res = await axios.get(`/api/teacher/assignments/submissions?teacherEmail=${encodeURIComponent(email)}`);
-      console.log('Assignment submissions response:', res.data);
-      
-      if (Array.isArray(res.data)) {
-        setAssignmentSubmissions(res.data);
-      }
+      const first = await fetchPage<AssignmentSubmission>(submissionsUrl(email));
+      console.log('Assignment submissions response:', first.items);
+      setSubmissionPage((prev) => refreshFirstPage(prev, first));
     } catch (err) {
       console.error('Error fetching assignment submissions:', err);
     }
   };
 
+  const loadMoreSubmissions = async () => {
+    const email = user?.email;
+    if (!email || !submissionPage.nextCursor) return;
+    setLoadingMoreSubmissions(true);
+    try {
+      const next = await fetchPage<AssignmentSubmission>(submissionsUrl(email), submissionPage.nextCursor);
+      setSubmissionPage((prev) => appendPage(prev, next));
+    } catch (err) {
+      console.error('Error fetching older assignment submissions:', err);
+    } finally {
+      setLoadingMoreSubmissions(false);
+    }
+  };
+
   useEffect(() => {
+    setNotificationPage({ items: [], nextCursor: null });
+    setSubmissionPage({ items: [], nextCursor: null });
     fetchNotifications();
     fetchAssignmentSubmissions();
-    
-    // Auto-refresh every 30 seconds to check for new queries and submissions
+
+    // Auto-refresh submissions every 30 seconds
     const interval = setInterval(() => {
-      fetchNotifications();
       fetchAssignmentSubmissions();
     }, 30000);
-    
-    return () => clearInterval(interval);
+
+    // New queries are pushed over Server-Sent Events and added to the list in place; only a
+    // "resync" (events missed beyond the server's replay window) re-fetches.
+    const closeStream = user?.email
+      ? openNotificationStream("/api/teacher/notifications/stream", user, {
+          query: (e: { id: string; studentEmail?: string | null; message: string; date: string }) =>
+            setNotificationPage((prev) =>
+              prev.items.some((n) => n.id === e.id)
+                ? prev
+                : {
+                    ...prev,
+                    items: [{ id: e.id, studentName: e.studentEmail ?? "No Student", query: e.message, date: e.date }, ...prev.items],
+                  }
+            ),
+          resync: () => fetchNotifications(),
+        })
+      : undefined;
+
+    return () => {
+      clearInterval(interval);
+      closeStream?.();
+    };
   }, [user?.email]);
 
   return (
@@ -119,7 +180,7 @@ const TeacherHome: React.FC = () => {
               </div>
 
               <div className="p-8">
-                {notifications.length === 0 ? (
+                {notificationPage.items.length === 0 ? (
                   <div className="text-center py-12">
                     <div className="bg-gray-50 rounded-full w-20 h-20 mx-auto flex items-center justify-center mb-4">
                       <div className="w-10 h-10 bg-gray-200 rounded-full"></div>
@@ -131,7 +192,7 @@ const TeacherHome: React.FC = () => {
                   </div>
                 ) : (
                   <div className="space-y-4">
-                    {notifications.map((n) => (
+                    {notificationPage.items.map((n) => (
                       <div
                         key={n.id}
                         className="bg-gradient-to-r from-gray-50 to-indigo-50 p-6 rounded-xl border border-gray-100 hover:shadow-md transition-all duration-200"
@@ -185,6 +246,17 @@ const TeacherHome: React.FC = () => {
                     ))}
                   </div>
                 )}
+                {notificationPage.nextCursor && (
+                  <div className="mt-6 text-center">
+                    <button
+                      onClick={loadMoreNotifications}
+                      disabled={loadingMoreNotifications}
+                      className="px-4 py-2 text-sm font-medium text-indigo-700 bg-indigo-50 border border-indigo-200 rounded-lg hover:bg-indigo-100 disabled:opacity-50 transition-colors duration-200"
+                    >
+                      {loadingMoreNotifications ? 'Loading...' : 'Load older queries'}
+                    </button>
+                  </div>
+                )}
               </div>
             </div>
           </div>
@@ -202,7 +274,7 @@ const TeacherHome: React.FC = () => {
               </div>
 
               <div className="p-8">
-                {assignmentSubmissions.length === 0 ? (
+                {submissionPage.items.length === 0 ? (
                   <div className="text-center py-12">
                     <div className="bg-gray-50 rounded-full w-20 h-20 mx-auto flex items-center justify-center mb-4">
                       <div className="w-10 h-10 bg-gray-200 rounded-full"></div>
@@ -216,7 +288,7 @@ const TeacherHome: React.FC = () => {
                   </div>
                 ) : (
                   <div className="space-y-4">
-                    {assignmentSubmissions.map((submission) => (
+                    {submissionPage.items.map((submission) => (
                       <div
                         key={submission.id}
                         className="bg-gradient-to-r from-gray-50 to-emerald-50 p-6 rounded-xl border border-gray-100 hover:shadow-md transition-all duration-200"
@@ -252,10 +324,10 @@ const TeacherHome: React.FC = () => {
                                 </p>
                               </div>
                             )}
-                            {submission.filePath && (
+                            {submission.downloadUrl && (
                               <div className="mt-3">
                                 <a
-                                  href={`http://localhost:8080/api/files/${submission.filePath}`}
+                                  href={submission.downloadUrl}
                                   target="_blank"
                                   rel="noopener noreferrer"
                                   className="inline-flex items-center px-3 py-2 bg-blue-600 text-white text-sm font-medium rounded-lg hover:bg-blue-700 transition-colors duration-200"
@@ -270,6 +342,17 @@ const TeacherHome: React.FC = () => {
                     ))}
                   </div>
                 )}
+                {submissionPage.nextCursor && (
+                  <div className="mt-6 text-center">
+                    <button
+                      onClick={loadMoreSubmissions}
+                      disabled={loadingMoreSubmissions}
+                      className="px-4 py-2 text-sm font-medium text-emerald-700 bg-emerald-50 border border-emerald-200 rounded-lg hover:bg-emerald-100 disabled:opacity-50 transition-colors duration-200"
+                    >
+                      {loadingMoreSubmissions ? 'Loading...' : 'Load older submissions'}
+                    </button>
+                  </div>
+                )}
               </div>
             </div>
           </div>
@@ -2,6 +2,9 @@
 import { useState, useEffect } from "react";
 import type { FormEvent } from "react";
 import axios from "axios";
+import { useAuth } from "../firebase/AuthProvider";
+import { appendPage, fetchPage } from "../paging";
+import type { Page } from "../paging";
 
 interface Query {
   id: string;
@@ -12,19 +15,26 @@ interface Query {
 }
 
 const TeacherQueries = () => {
-  const [queries, setQueries] = useState<Query[]>([]);
+  const [queryPage, setQueryPage] = useState<Page<Query>>({ items: [], nextCursor: null });
+  const [loadingMore, setLoadingMore] = useState(false);
   const [replyMap, setReplyMap] = useState<{ [key: string]: string }>({});
   const [message, setMessage] = useState("");
+  const { user } = useAuth();
 
-  // Fetch all queries on component mount
+  // Fetch this teacher's queries once the signed-in user is known
   useEffect(() => {
     fetchQueries();
-  }, []);
+  }, [user?.email]);
 
+  const queriesUrl = (email: string) =>
+    `/api/teacher/queries?teacherEmail=${encodeURIComponent(email)}`;
+
+  // Queries come newest first, one page at a time; older pages load on demand.
   const fetchQueries = async () => {
+    const email = user?.email;
+    if (!email) return;
     try {
-      const res = await axios.get("/api/teacher/queries");
-      setQueries(res.data);
+      setQueryPage(await fetchPage<Query>(queriesUrl(email)));
       setMessage("");
     } catch (err) {
       console.error(err);
@@ -32,6 +42,21 @@ const TeacherQueries = () => {
     }
   };
 
+  const loadMoreQueries = async () => {
+    const email = user?.email;
+    if (!email || !queryPage.nextCursor) return;
+    setLoadingMore(true);
+    try {
+      const next = await fetchPage<Query>(queriesUrl(email), queryPage.nextCursor);
+      setQueryPage((prev) => appendPage(prev, next));
+    } catch (err) {
+      console.error(err);
+      setMessage("Error fetching queries.");
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleReplyChange = (id: string, value: string) => {
     setReplyMap((prev) => ({ ...prev, [id]: value }));
   };
@@ -48,9 +73,10 @@ const TeacherQueries = () => {
       await axios.post(`/api/teacher/queries/${queryId}/reply`, { reply });
       setMessage("Reply submitted successfully!");
       // Optionally update local query with reply
-      setQueries((prev) =>
-        prev.map((q) => (q.id === queryId ? { ...q, reply } : q))
-      );
+      setQueryPage((prev) => ({
+        ...prev,
+        items: prev.items.map((q) => (q.id === queryId ? { ...q, reply } : q)),
+      }));
       setReplyMap((prev) => ({ ...prev, [queryId]: "" }));
     } catch (err) {
       console.error(err);
@@ -58,8 +84,11 @@ const TeacherQueries = () => {
     }
   };
 
+  const queries = queryPage.items;
   const pendingQueries = queries.filter((q) => !q.reply);
   const answeredQueries = queries.filter((q) => q.reply);
+  // counts cover the pages loaded so far
+  const more = queryPage.nextCursor ? "+" : "";
 
   return (
     <div className="min-h-screen bg-gradient-to-br from-indigo-100 via-white to-cyan-100 p-6">
@@ -100,7 +129,7 @@ const TeacherQueries = () => {
                     </p>
                   </div>
                   <div className="text-3xl font-bold text-orange-600">
-                    {pendingQueries.length}
+                    {pendingQueries.length}{more}
                   </div>
                 </div>
               </div>
@@ -116,7 +145,7 @@ const TeacherQueries = () => {
                     </p>
                   </div>
                   <div className="text-3xl font-bold text-emerald-600">
-                    {answeredQueries.length}
+                    {answeredQueries.length}{more}
                   </div>
                 </div>
               </div>
@@ -253,6 +282,18 @@ const TeacherQueries = () => {
                 )}
               </div>
             )}
+
+            {queryPage.nextCursor && (
+              <div className="mt-8 text-center">
+                <button
+                  onClick={loadMoreQueries}
+                  disabled={loadingMore}
+                  className="px-4 py-2 text-sm font-medium text-indigo-700 bg-indigo-50 border border-indigo-200 rounded-lg hover:bg-indigo-100 disabled:opacity-50 transition-colors duration-200"
+                >
+                  {loadingMore ? "Loading..." : "Load older queries"}
+                </button>
+              </div>
+            )}
           </div>
         </div>
       </div>
@@ -0,0 +1,43 @@
+// src/paging.ts
+import axios from "axios";
+
+// The list endpoints return one page at a time, newest first, and put the cursor for the next
+// (older) page in this response header. The header is absent on the last page.
+const NEXT_CURSOR_HEADER = "x-next-cursor";
+
+export interface Page<T> {
+  items: T[];
+  nextCursor: string | null;
+}
+
+export async function fetchPage<T>(url: string, cursor?: string | null): Promise<Page<T>> {
+  const pageUrl = cursor
+    ? `${url}${url.includes("?") ? "&" : "?"}cursor=${encodeURIComponent(cursor)}`
+    : url;
+  const res = await axios.get(pageUrl);
+  const next = res.headers[NEXT_CURSOR_HEADER];
+  return {
+    items: Array.isArray(res.data) ? res.data : [],
+    nextCursor: typeof next === "string" && next !== "" ? next : null,
+  };
+}
+
+// Refreshing reloads only the first page; rows the user already paged in with "Load more" are
+// kept behind it (minus duplicates) together with their cursor, so a refresh does not collapse
+// the list back to one page.
+export function refreshFirstPage<T extends { id: string | number }>(
+  previous: Page<T>,
+  first: Page<T>
+): Page<T> {
+  // a first page without a cursor already holds every row
+  if (first.nextCursor === null || previous.items.length <= first.items.length) return first;
+  const fresh = new Set(first.items.map((item) => String(item.id)));
+  return {
+    items: [...first.items, ...previous.items.filter((item) => !fresh.has(String(item.id)))],
+    nextCursor: previous.nextCursor,
+  };
+}
+
+export function appendPage<T>(previous: Page<T>, next: Page<T>): Page<T> {
+  return { items: [...previous.items, ...next.items], nextCursor: next.nextCursor };
+}